@@ -0,0 +1,15 @@
+package com.ecommercegt.api.config;
+
+import com.ecommercegt.api.model.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal stored in the SecurityContext, built from the verified JWT claims.
+ * getName() stays the email so existing {@code auth.getName()} callers keep working.
+ */
+public record AuthUser(Long id, String email, Role role) implements AuthenticatedPrincipal {
+    @Override
+    public String getName() {
+        return email;
+    }
+}
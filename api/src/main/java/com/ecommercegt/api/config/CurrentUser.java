@@ -0,0 +1,15 @@
+package com.ecommercegt.api.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated {@link AuthUser} (id, email, role) resolved by {@link JwtAuthFilter}
+ * into a controller method parameter, without querying the users table again.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
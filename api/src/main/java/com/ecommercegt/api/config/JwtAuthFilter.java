@@ -1,7 +1,8 @@
 package com.ecommercegt.api.config;
 
-import com.ecommercegt.api.repository.UserRepository;
+import com.ecommercegt.api.model.Role;
 import com.ecommercegt.api.service.JwtService;
+import com.ecommercegt.api.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,10 +20,11 @@ import java.util.List;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwt;
-    private final UserRepository users;
+    private final TokenRevocationService revocations;
 
-    public JwtAuthFilter(JwtService jwt, UserRepository users) {
-        this.jwt = jwt; this.users = users;
+    public JwtAuthFilter(JwtService jwt, TokenRevocationService revocations) {
+        this.jwt = jwt;
+        this.revocations = revocations;
     }
 
     @Override
@@ -32,11 +34,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (auth != null && auth.startsWith("Bearer ")) {
             String token = auth.substring(7);
             try {
-                String email = jwt.getSubject(token);
-                var user = users.findByEmail(email).orElse(null);
-                if (user != null) {
-                    var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
-                    var authToken = new UsernamePasswordAuthenticationToken(email, null, authorities);
+                // uid and role come from the signed claims, no users lookup needed
+                var claims = jwt.verify(token);
+                // Suspended users / changed roles: tokens issued before the user's epoch are rejected
+                if (claims.uid() != null && claims.role() != null
+                        && !revocations.isRevoked(claims.uid(), claims.issuedAt())) {
+                    var user = new AuthUser(claims.uid(), claims.email(), Role.valueOf(claims.role()));
+                    var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.role().name()));
+                    var authToken = new UsernamePasswordAuthenticationToken(user, null, authorities);
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception ignored) {
@@ -45,4 +50,4 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         chain.doFilter(req, res);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.ecommercegt.api.controller;
+
+import com.ecommercegt.api.service.HotStock;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Flash-sale switch: splits a product's stock into shards so checkouts of it run in parallel.
+ */
+@RestController
+@RequestMapping("/api/admin/products")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminProductController {
+    private final HotStock hotStock;
+
+    public AdminProductController(HotStock hotStock) {
+        this.hotStock = hotStock;
+    }
+
+    @PutMapping("/{id}/hot")
+    public HotStock.Status enableHot(@PathVariable Long id, @RequestParam(defaultValue = "8") int shards) {
+        return hotStock.enable(id, shards);
+    }
+
+    @DeleteMapping("/{id}/hot")
+    public HotStock.Status disableHot(@PathVariable Long id) {
+        return hotStock.disable(id);
+    }
+}
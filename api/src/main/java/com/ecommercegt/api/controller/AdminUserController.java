@@ -3,9 +3,11 @@ package com.ecommercegt.api.controller;
 import com.ecommercegt.api.model.Role;
 import com.ecommercegt.api.model.User;
 import com.ecommercegt.api.repository.UserRepository;
+import com.ecommercegt.api.service.TokenRevocationService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -17,10 +19,12 @@ import java.util.List;
 public class AdminUserController {
     private final UserRepository users;
     private final PasswordEncoder encoder;
+    private final TokenRevocationService revocations;
 
-    public AdminUserController(UserRepository users, PasswordEncoder encoder) {
+    public AdminUserController(UserRepository users, PasswordEncoder encoder, TokenRevocationService revocations) {
         this.users = users;
         this.encoder = encoder;
+        this.revocations = revocations;
     }
 
     @GetMapping
@@ -35,6 +39,7 @@ public class AdminUserController {
     }
 
     @PatchMapping("/{id}/suspend")
+    @Transactional // the revocation takes effect only if the save commits
     public void suspendUser(@PathVariable Long id) {
         var user = users.findById(id).orElseThrow();
 
@@ -44,6 +49,7 @@ public class AdminUserController {
         }
 
         user.setActive(false);
+        revocations.revoke(user);
         users.save(user);
     }
 
@@ -87,6 +93,7 @@ public class AdminUserController {
     }
 
     @PatchMapping("/{id}")
+    @Transactional
     public User updateWorker(@PathVariable Long id, @RequestBody UpdateWorkerRequest req) {
         var user = users.findById(id).orElseThrow();
 
@@ -112,6 +119,9 @@ public class AdminUserController {
             if (user.getRole() == Role.ADMIN && newRole != Role.ADMIN) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No se puede cambiar el rol de un usuario ADMIN");
             }
+            if (newRole != user.getRole()) {
+                revocations.revoke(user); // existing tokens carry the old role
+            }
             user.setRole(newRole);
         }
         return users.save(user);
@@ -1,12 +1,14 @@
 package com.ecommercegt.api.controller;
 
+import com.ecommercegt.api.config.AuthUser;
+import com.ecommercegt.api.config.CurrentUser;
 import com.ecommercegt.api.dto.AuthDtos;
 import com.ecommercegt.api.repository.UserRepository;
 import com.ecommercegt.api.service.AuthService;
+import com.ecommercegt.api.service.RefreshTokenService;
 import jakarta.validation.Valid;
 
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -14,10 +16,12 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     private final AuthService auth;
     private final UserRepository users;
+    private final RefreshTokenService refreshTokens;
 
-    public AuthController(AuthService auth, UserRepository users) {
+    public AuthController(AuthService auth, UserRepository users, RefreshTokenService refreshTokens) {
         this.auth = auth;
         this.users = users;
+        this.refreshTokens = refreshTokens;
     }
 
     @PostMapping("/register")
@@ -31,10 +35,22 @@ public class AuthController {
         return auth.login(req);
     }
 
+    // Rotates the refresh token and returns a new short-lived access token (no password check)
+    @PostMapping("/refresh")
+    public AuthDtos.AuthResponse refresh(@RequestBody AuthDtos.RefreshRequest req) {
+        return refreshTokens.refresh(req.refreshToken());
+    }
+
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(@RequestBody AuthDtos.RefreshRequest req) {
+        refreshTokens.revoke(req.refreshToken());
+    }
+
     @GetMapping("/me")
-    public AuthDtos.UserResponse me(Authentication authentication) {
-        String email = authentication.getName();
-        var u = users.findByEmail(email).orElseThrow();
+    public AuthDtos.UserResponse me(@CurrentUser AuthUser me) {
+        // name and active are not in the token: one primary-key lookup
+        var u = users.findById(me.id()).orElseThrow();
         return new AuthDtos.UserResponse(
                 u.getId(),
                 u.getName(),
@@ -1,11 +1,11 @@
 package com.ecommercegt.api.controller;
 
-import com.ecommercegt.api.model.User;
-import com.ecommercegt.api.repository.UserRepository;
+import com.ecommercegt.api.config.AuthUser;
+import com.ecommercegt.api.config.CurrentUser;
 import com.ecommercegt.api.service.CartService;
+import com.ecommercegt.api.service.ResourceVersions;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequestMapping("/api")
@@ -21,16 +22,11 @@ import org.springframework.web.bind.annotation.RestController;
 public class CartController {
 
     private final CartService cartService;
-    private final UserRepository users;
+    private final ResourceVersions versions;
 
-    public CartController(CartService cartService, UserRepository users) {
+    public CartController(CartService cartService, ResourceVersions versions) {
         this.cartService = cartService;
-        this.users = users;
-    }
-
-    private User me(Authentication auth){
-        return users.findByEmail(auth.getName())
-                .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(org.springframework.http.HttpStatus.UNAUTHORIZED));
+        this.versions = versions;
     }
 
     public record ProductMini(Long id, String name, String imageUrl, java.math.BigDecimal price) {}
@@ -38,6 +34,7 @@ public class CartController {
     public record CartDTO(java.util.List<CartItemDTO> items, java.math.BigDecimal subtotal) {}
     public record AddItemRequest(Long productId, Integer qty) {}
     public record UpdateQtyRequest(Integer qty) {}
+    public record CartOpsRequest(java.util.List<CartService.CartOp> ops) {}
 
     private CartDTO toDto(com.ecommercegt.api.model.Cart cart){
         var list = cart.getItems().stream().map(ci -> new CartItemDTO(
@@ -49,48 +46,54 @@ public class CartController {
                         ci.getProduct().getPrice()
                 ),
                 ci.getQuantity(),
-                ci.getLineTotal()
+                ci.getLineTotal().toBigDecimal()
         )).toList();
-        return new CartDTO(list, cart.getSubtotal());
+        return new CartDTO(list, cart.getSubtotal().toBigDecimal());
     }
 
     @GetMapping("/cart")
-    public CartDTO getCart(Authentication auth){
-        var cart = cartService.getOrCreate(me(auth));
+    public CartDTO getCart(@CurrentUser AuthUser me, ServletWebRequest request){
+        if (ConditionalGet.notModified(request, versions.cart(me.id()))) return null; // 304, nothing loaded
+        var cart = cartService.getOrCreate(me.id());
         return toDto(cart); // debería devolver [] y subtotal 0 la primera vez
     }
 
     // Add item to cart
     @PostMapping("/cart/items")
-    public CartDTO add(Authentication auth, @RequestBody AddItemRequest req){
-        var user = me(auth);
+    public CartDTO add(@CurrentUser AuthUser me, @RequestBody AddItemRequest req){
         var qty = (req.qty() != null && req.qty() > 0) ? req.qty() : 1;
-        var cart = cartService.addItem(user, req.productId(), qty);
+        var cart = cartService.addItem(me.id(), req.productId(), qty);
         return toDto(cart);
     }
 
     // Update item quantity in cart
     @PatchMapping("/cart/items/{id}")
-    public CartDTO patchQty(Authentication auth, @PathVariable Long id, @RequestBody UpdateQtyRequest req){
-        var user = me(auth);
+    public CartDTO patchQty(@CurrentUser AuthUser me, @PathVariable Long id, @RequestBody UpdateQtyRequest req){
         if (req.qty() == null) {
             throw new org.springframework.web.server.ResponseStatusException(org.springframework.http.HttpStatus.BAD_REQUEST, "qty is required");
         }
-        var cart = cartService.updateQty(user, id, req.qty());
+        var cart = cartService.updateQty(me.id(), id, req.qty());
+        return toDto(cart);
+    }
+
+    // Apply several add / set / remove steps at once (one transaction, one response)
+    @PostMapping("/cart/ops")
+    public CartDTO applyOps(@CurrentUser AuthUser me, @RequestBody CartOpsRequest req){
+        var cart = cartService.applyOps(me.id(), req.ops());
         return toDto(cart);
     }
 
     // Remove item from cart
     @DeleteMapping("/cart/items/{id}")
     @org.springframework.web.bind.annotation.ResponseStatus(HttpStatus.NO_CONTENT)
-    public void remove(Authentication auth, @PathVariable Long id){
-        cartService.removeItem(me(auth), id);
+    public void remove(@CurrentUser AuthUser me, @PathVariable Long id){
+        cartService.removeItem(me.id(), id);
     }
 
     // Clear cart
     @DeleteMapping("/cart")
     @org.springframework.web.bind.annotation.ResponseStatus(HttpStatus.NO_CONTENT)
-    public void clear(Authentication auth){
-        cartService.clear(me(auth));
+    public void clear(@CurrentUser AuthUser me){
+        cartService.clear(me.id());
     }
 }
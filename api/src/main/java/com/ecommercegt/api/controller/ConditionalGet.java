@@ -0,0 +1,23 @@
+package com.ecommercegt.api.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Strong-ETag revalidation for polled GETs. Call it before loading anything: when it returns
+ * true the 304 is already set and the handler should return null.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {}
+
+    static boolean notModified(ServletWebRequest request, String version) {
+        // private + no-cache: the browser may keep it but must revalidate (replaces Security's no-store)
+        var response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+        return request.checkNotModified("\"" + version + "\"");
+    }
+}
@@ -1,6 +1,7 @@
 package com.ecommercegt.api.controller;
 
 import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.ProductSummary;
 import com.ecommercegt.api.service.ProductModerationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -9,7 +10,6 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/moderation/products")
@@ -50,12 +50,15 @@ public class ModerationProductController {
         );
     }
 
+    // Cards only: description comes from GET /{id}
     @GetMapping
-    public List<ProductResponse> listByStatus(@RequestParam("status") Product.Status status) {
-        return svc.listByStatus(status)
-                .stream()
-                .map(ModerationProductController::toDto)
-                .collect(Collectors.toList());
+    public List<ProductSummary> listByStatus(@RequestParam("status") Product.Status status) {
+        return svc.listByStatus(status);
+    }
+
+    @GetMapping("/{id}")
+    public ProductResponse get(@PathVariable Long id) {
+        return toDto(svc.get(id));
     }
 
     @PatchMapping("/{id}/approve")
@@ -1,18 +1,24 @@
 package com.ecommercegt.api.controller;
 
+import com.ecommercegt.api.config.AuthUser;
+import com.ecommercegt.api.config.CurrentUser;
+import com.ecommercegt.api.event.OrdersChangedEvent;
 import com.ecommercegt.api.model.Order;
 import com.ecommercegt.api.model.OrderItem;
-import com.ecommercegt.api.model.User;
 import com.ecommercegt.api.repository.OrderRepository;
-import com.ecommercegt.api.repository.UserRepository;
+import com.ecommercegt.api.service.CheckoutIdempotency;
 import com.ecommercegt.api.service.CheckoutService;
+import com.ecommercegt.api.service.ResourceVersions;
+import com.ecommercegt.api.service.WriteBehindCartStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.math.BigDecimal;
-import java.security.Principal;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,11 +28,25 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private final CheckoutService checkout;
+    private final CheckoutIdempotency idempotency;
     private final OrderRepository orders;
-    private final UserRepository users;
+    private final ResourceVersions versions;
+    private final ApplicationEventPublisher events;
+    private final Optional<WriteBehindCartStore> writeBehind;
 
     // Incoming payload for checkout
-    public record CheckoutRequest(Long savedCardId, String cardHolder, String cardNumber, String brand, boolean save) {}
+    public record CheckoutRequest(Long savedCardId, String cardHolder, String cardNumber, String brand, boolean save) {
+        // What an Idempotency-Key is matched against: the request's fields in a fixed form, with
+        // only the last 4 digits of a raw card number
+        String fingerprint() {
+            String digits = cardNumber == null ? "" : cardNumber.replaceAll("\\s", "");
+            return "savedCard=" + savedCardId
+                    + "\nlast4=" + digits.substring(Math.max(0, digits.length() - 4))
+                    + "\nbrand=" + brand
+                    + "\nsave=" + save
+                    + "\nholder=" + cardHolder;
+        }
+    }
 
     // Flat DTOs for responses
     public record OrderLineDTO(
@@ -47,19 +67,30 @@ public class OrderController {
             List<OrderLineDTO> items
     ) {}
 
+    /**
+     * With an Idempotency-Key header, a retry of the same request (timeout, double tap) returns the
+     * order already placed instead of paying again; concurrent duplicates wait for the first one.
+     */
     @PreAuthorize("hasRole('COMMON')")
     @PostMapping("/checkout")
-    public OrderSummary doCheckout(@RequestBody CheckoutRequest req, Principal principal) {
-        Long buyerId = users.findByEmail(principal.getName()).orElseThrow().getId();
-        Order o = checkout.checkout(buyerId, req.savedCardId(), req.cardHolder(), req.cardNumber(), req.brand(), req.save());
-        return toSummary(o);
+    public OrderSummary doCheckout(@RequestBody CheckoutRequest req, @CurrentUser AuthUser me,
+                                   @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        // pending in-memory cart edits go to the database before the checkout transaction takes a connection
+        writeBehind.ifPresent(store -> store.flushForCheckout(me.id()));
+        if (idempotencyKey == null) {
+            Order o = checkout.checkout(me.id(), req.savedCardId(), req.cardHolder(), req.cardNumber(), req.brand(), req.save());
+            return toSummary(o);
+        }
+        Long orderId = idempotency.orderFor(me.id(), idempotencyKey, req.fingerprint(), () ->
+                checkout.checkout(me.id(), req.savedCardId(), req.cardHolder(), req.cardNumber(), req.brand(), req.save()));
+        return toSummary(orders.findWithItemsById(orderId).orElseThrow());
     }
 
     @PreAuthorize("hasRole('COMMON')")
     @GetMapping("/mine")
-    public List<OrderSummary> myOrders(Principal principal) {
-        User user = users.findByEmail(principal.getName()).orElseThrow();
-        return orders.findAllByBuyerOrderByCreatedAtDesc(user).stream()
+    public List<OrderSummary> myOrders(@CurrentUser AuthUser me, ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, versions.orders(me.id()))) return null; // 304, nothing loaded
+        return orders.findAllByBuyerIdOrderByCreatedAtDesc(me.id()).stream()
                 .map(this::toSummary)
                 .collect(Collectors.toList());
     }
@@ -74,7 +105,7 @@ public class OrderController {
                 o.getStatus() != null ? o.getStatus().name() : null,
                 o.getCreatedAt() != null ? o.getCreatedAt().toString() : null,
                 o.getDeliveryDueDate() != null ? o.getDeliveryDueDate().toString() : null,
-                o.getSubtotal(),
+                o.getSubtotal() != null ? o.getSubtotal().toBigDecimal() : null,
                 lines
         );
     }
@@ -85,9 +116,9 @@ public class OrderController {
                 p != null ? p.getId() : null,
                 p != null ? p.getName() : null,
                 p != null ? p.getImageUrl() : null,
-                it.getUnitPrice(),
+                it.getUnitPrice() != null ? it.getUnitPrice().toBigDecimal() : null,
                 it.getQuantity(),
-                it.getLineTotal()
+                it.getLineTotal() != null ? it.getLineTotal().toBigDecimal() : null
         );
     }
 
@@ -111,6 +142,7 @@ public class OrderController {
         if (o.getStatus() != Order.Status.DELIVERED && o.getStatus() != Order.Status.SHIPPED) {
             o.setStatus(Order.Status.SHIPPED);
             orders.save(o);
+            events.publishEvent(new OrdersChangedEvent(o.getBuyer().getId()));
         }
         return toSummary(o);
     }
@@ -122,6 +154,7 @@ public class OrderController {
         if (o.getStatus() != Order.Status.DELIVERED) {
             o.setStatus(Order.Status.DELIVERED);
             orders.save(o);
+            events.publishEvent(new OrdersChangedEvent(o.getBuyer().getId()));
         }
         return toSummary(o);
     }
@@ -1,13 +1,22 @@
 package com.ecommercegt.api.controller;
 
+import com.ecommercegt.api.config.AuthUser;
+import com.ecommercegt.api.config.CurrentUser;
 import com.ecommercegt.api.model.Product;
-import com.ecommercegt.api.model.User;
 import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.ProductSummary;
 import com.ecommercegt.api.repository.UserRepository;
+import com.ecommercegt.api.service.CatalogItem;
+import com.ecommercegt.api.service.CatalogService;
+import com.ecommercegt.api.service.FacetCounts;
+import com.ecommercegt.api.service.ResourceVersions;
+import com.ecommercegt.api.service.SearchIndex;
+import com.ecommercegt.api.service.SellerProductService;
+import com.ecommercegt.api.service.SuggestIndex;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -20,10 +29,24 @@ public class ProductController {
 
     private final ProductRepository products;
     private final UserRepository users;
-
-    public ProductController(ProductRepository products, UserRepository users) {
+    private final CatalogService catalog;
+    private final SearchIndex search;
+    private final SuggestIndex suggest;
+    private final FacetCounts facets;
+    private final ResourceVersions versions;
+    private final SellerProductService sellerProducts;
+
+    public ProductController(ProductRepository products, UserRepository users, CatalogService catalog,
+                             SearchIndex search, SuggestIndex suggest, FacetCounts facets,
+                             ResourceVersions versions, SellerProductService sellerProducts) {
         this.products = products;
         this.users = users;
+        this.catalog = catalog;
+        this.search = search;
+        this.suggest = suggest;
+        this.facets = facets;
+        this.versions = versions;
+        this.sellerProducts = sellerProducts;
     }
 
     // DTOs
@@ -50,10 +73,11 @@ public class ProductController {
             Long ownerId
     ) {}
 
-    private User me(Authentication auth){
-        return users.findByEmail(auth.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
-    }
+    // facets: counts over the whole purchasable catalog (not narrowed by the current filters)
+    public record CatalogPage(List<ProductSummary> items, String nextCursor, FacetCounts.Facets facets) {}
+
+    // facets: counts over the returned hits only
+    public record SearchResults(List<ProductSummary> items, FacetCounts.Facets facets) {}
 
     private ProductResponse toDto(Product p) {
         return new ProductResponse(
@@ -70,18 +94,29 @@ public class ProductController {
         );
     }
 
-    // Centralized validation + parsing to remove duplication
-    private record Validated(
-            String name,
-            String description,
-            String imageUrl,
-            BigDecimal price,
-            Integer stock,
-            Product.Condition condition,
-            Product.Category category
-    ) {}
+    private ProductResponse toDto(CatalogItem p) {
+        return new ProductResponse(
+                p.id(),
+                p.name(),
+                p.description(),
+                p.imageUrl(),
+                p.price(),
+                p.stock(),
+                p.condition().name(),
+                p.category().name(),
+                p.status().name(),
+                p.ownerId()
+        );
+    }
+
+    // Listing card: same columns as the repository projection (no description)
+    private static ProductSummary toSummary(CatalogItem p) {
+        return new ProductSummary(p.id(), p.name(), p.imageUrl(), p.price(), p.stock(),
+                p.condition(), p.category(), p.status(), p.createdAt(), p.ownerId());
+    }
 
-    private Validated validate(CreateProductRequest req) {
+    // Centralized validation + parsing to remove duplication
+    private SellerProductService.Changes validate(CreateProductRequest req) {
         if (req == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Datos requeridos");
         var name = (req.name == null ? "" : req.name.trim());
         var description = (req.description == null ? "" : req.description.trim());
@@ -101,29 +136,19 @@ public class ProductController {
         try {
             var cond = Product.Condition.valueOf(req.condition);
             var cat  = Product.Category.valueOf(req.category);
-            return new Validated(name, description, imageUrl, req.price, req.stock, cond, cat);
+            return new SellerProductService.Changes(name, description, imageUrl, req.price, req.stock, cond, cat);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Condición o categoría inválida");
         }
     }
 
-    private Product requireOwned(Authentication auth, Long id) {
-        var user = me(auth);
-        var p = products.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
-        if (!p.getOwner().getId().equals(user.getId()))
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No puedes editar este producto");
-        return p;
-    }
-
     // COMMON creates product in IN_REVIEW
     @PostMapping
-    public ProductResponse create(Authentication auth, @RequestBody CreateProductRequest req) {
+    public ProductResponse create(@CurrentUser AuthUser me, @RequestBody CreateProductRequest req) {
         var v = validate(req);
 
-        var user = me(auth);
         var p = new Product();
-        p.setOwner(user);
+        p.setOwner(users.getReferenceById(me.id())); // proxy, only the FK is needed
         p.setName(v.name());
         p.setDescription(v.description());
         p.setImageUrl(v.imageUrl());
@@ -138,38 +163,63 @@ public class ProductController {
 
     // COMMON: list own products
     @GetMapping("/mine")
-    public List<ProductResponse> myProducts(Authentication auth) {
-        var user = me(auth);
-        return products.findAllByOwnerOrderByCreatedAtDesc(user).stream().map(this::toDto).toList();
+    public List<ProductSummary> myProducts(@CurrentUser AuthUser me) {
+        return products.findSummariesByOwner(me.id());
     }
 
-    // Public catalog: only APPROVED
+    // Detail (with description): approved products from the snapshot, anything else only for its owner
+    @GetMapping("/{id}")
+    public ProductResponse get(@CurrentUser AuthUser me, @PathVariable Long id) {
+        var approved = catalog.get(id);
+        if (approved.isPresent()) return toDto(approved.get());
+        return products.findById(id)
+                .filter(p -> p.getOwner().getId().equals(me.id()))
+                .map(this::toDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
+    }
+
+    // Public catalog: only APPROVED, newest first, keyset-paginated (pass back nextCursor for the next page)
     @GetMapping("/catalog")
-    public List<ProductResponse> catalog() {
-        return products.findAllByStatusOrderByCreatedAtDesc(Product.Status.APPROVED)
-                .stream().map(this::toDto).toList();
+    public CatalogPage catalog(@RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) Integer limit,
+                               @RequestParam(required = false) Product.Category category,
+                               @RequestParam(required = false) Product.Condition condition,
+                               @RequestParam(required = false) BigDecimal minPrice,
+                               @RequestParam(required = false) BigDecimal maxPrice,
+                               @RequestParam(required = false) Long ownerId,
+                               ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, versions.catalog())) return null; // 304, nothing loaded
+        var page = catalog.page(new CatalogService.Filter(category, condition, minPrice, maxPrice, ownerId), cursor, limit);
+        return new CatalogPage(page.items().stream().map(ProductController::toSummary).toList(), page.nextCursor(), facets.current());
+    }
+
+    // Full-text search over approved products (name + description), BM25-ranked, served from memory
+    @GetMapping("/search")
+    public SearchResults search(@RequestParam String q,
+                                @RequestParam(required = false) Product.Category category,
+                                @RequestParam(required = false) Product.Condition condition,
+                                @RequestParam(defaultValue = "20") int limit) {
+        var hits = search.search(q, category, condition, Math.max(1, Math.min(limit, 100)));
+        var items = hits.stream().map(SearchIndex.Hit::product).toList();
+        return new SearchResults(items.stream().map(ProductController::toSummary).toList(), FacetCounts.of(items));
+    }
+
+    // Type-ahead on product names (prefix of any word), best sellers first
+    @GetMapping("/suggest")
+    public List<SuggestIndex.Suggestion> suggest(@RequestParam String q,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        return suggest.suggest(q, Math.max(1, Math.min(limit, 20)));
     }
 
     // COMMON: update own product and send to review again
     @PutMapping("/{id}")
-    public ProductResponse update(Authentication auth, @PathVariable Long id, @RequestBody CreateProductRequest req) {
-        var v = validate(req);
-
-        var p = requireOwned(auth, id);
-        p.setName(v.name());
-        p.setDescription(v.description());
-        p.setImageUrl(v.imageUrl());
-        p.setPrice(v.price());
-        p.setStock(v.stock());
-        p.setCondition(v.condition());
-        p.setCategory(v.category());
-        p.setStatus(Product.Status.IN_REVIEW);
-        return toDto(products.save(p));
+    public ProductResponse update(@CurrentUser AuthUser me, @PathVariable Long id, @RequestBody CreateProductRequest req) {
+        return toDto(sellerProducts.update(me.id(), id, validate(req)));
     }
 
     // PATCH variante: mismo comportamiento, permite compatibilidad con front
     @PatchMapping("/{id}")
-    public ProductResponse patch(Authentication auth, @PathVariable Long id, @RequestBody CreateProductRequest req) {
-        return update(auth, id, req);
+    public ProductResponse patch(@CurrentUser AuthUser me, @PathVariable Long id, @RequestBody CreateProductRequest req) {
+        return update(me, id, req);
     }
 }
@@ -1,13 +1,13 @@
 package com.ecommercegt.api.controller;
 
+import com.ecommercegt.api.config.AuthUser;
+import com.ecommercegt.api.config.CurrentUser;
 import com.ecommercegt.api.model.SavedCard;
-import com.ecommercegt.api.repository.UserRepository;
 import com.ecommercegt.api.service.SavedCardService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 
 @RestController
@@ -17,29 +17,22 @@ import java.util.List;
 public class SavedCardController {
 
     private final SavedCardService service;
-    private final UserRepository users;
-
-    // Helper method to resolve current user ID by email from Principal
-    private Long currentUserId(Principal principal) {
-        var u = users.findByEmail(principal.getName()).orElseThrow();
-        return u.getId();
-    }
 
     // List all saved cards for the current user
     @GetMapping
-    public List<SavedCard> list(Principal principal) {
-        return service.listForUser(currentUserId(principal));
+    public List<SavedCard> list(@CurrentUser AuthUser me) {
+        return service.listForUser(me.id());
     }
 
     // Create a new saved card for the current user
     @PostMapping
-    public SavedCard create(@RequestBody SavedCard payload, Principal principal) {
-        return service.create(currentUserId(principal), payload);
+    public SavedCard create(@RequestBody SavedCard payload, @CurrentUser AuthUser me) {
+        return service.create(me.id(), payload);
     }
 
     // Delete a saved card (must belong to the user)
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id, Principal principal) {
-        service.delete(currentUserId(principal), id);
+    public void delete(@PathVariable Long id, @CurrentUser AuthUser me) {
+        service.delete(me.id(), id);
     }
 }
@@ -20,5 +20,6 @@ public class AuthDtos {
     ) {}
 
     public record LoginRequest(String email, String password) {}
-    public record AuthResponse(String token) {}
+    public record AuthResponse(String token, String refreshToken) {}
+    public record RefreshRequest(String refreshToken) {}
 }
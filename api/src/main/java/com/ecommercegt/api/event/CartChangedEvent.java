@@ -0,0 +1,6 @@
+package com.ecommercegt.api.event;
+
+/**
+ * Published whenever a user's cart lines change (add, update, remove, clear, checkout).
+ */
+public record CartChangedEvent(Long userId) {}
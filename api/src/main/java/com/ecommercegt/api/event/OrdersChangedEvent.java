@@ -0,0 +1,6 @@
+package com.ecommercegt.api.event;
+
+/**
+ * Published when an order of this buyer is created or changes status.
+ */
+public record OrdersChangedEvent(Long buyerId) {}
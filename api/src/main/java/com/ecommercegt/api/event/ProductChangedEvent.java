@@ -0,0 +1,9 @@
+package com.ecommercegt.api.event;
+
+import com.ecommercegt.api.service.CatalogItem;
+
+/**
+ * Published after a product's data or moderation status changed (approve, reject, reopen, edit).
+ * Carries the new state so listeners do not have to query it back.
+ */
+public record ProductChangedEvent(CatalogItem product) {}
@@ -0,0 +1,9 @@
+package com.ecommercegt.api.event;
+
+import java.util.Map;
+
+/**
+ * Published by checkout with the units taken per product id (deltas, so concurrent orders commute);
+ * for hot products by HotStock, when units sold from the shards are written back to products.stock.
+ */
+public record StockChangedEvent(Map<Long, Integer> decrements) {}
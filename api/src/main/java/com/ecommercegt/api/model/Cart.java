@@ -1,7 +1,6 @@
 package com.ecommercegt.api.model;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
@@ -21,8 +20,8 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    /** The user who owns this cart */
-    @OneToOne(optional = false)
+    /** The user who owns this cart (lazy: cart reads never need the user row) */
+    @OneToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", unique = true, nullable = false)
     private User user;
 
@@ -35,9 +34,9 @@ public class Cart {
      * This value is not persisted in the database.
      */
     @Transient
-    public BigDecimal getSubtotal() {
-        return items.stream()
-                .map(CartItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Money getSubtotal() {
+        long cents = 0;
+        for (var item : items) cents = Math.addExact(cents, item.getLineTotal().cents());
+        return Money.ofCents(cents);
     }
 }
\ No newline at end of file
@@ -1,20 +1,24 @@
 package com.ecommercegt.api.model;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
-
 import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 /**
  * Represents a single item inside a user's cart.
  * Stores a reference to the product and the quantity chosen,
  * along with a snapshot of the product's price at the moment it was added.
  */
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items",
+        // one line per product: add-to-cart upserts against this (see CartItemRepository.upsertLine)
+        uniqueConstraints = @UniqueConstraint(name = "ux_cart_items_cart_product", columnNames = {"cart_id", "product_id"}),
+        // abandoned-line compaction scans by age (see CartCompactionJob)
+        indexes = @Index(name = "ix_cart_items_updated_at", columnList = "updated_at"))
 @Getter @Setter @NoArgsConstructor
 public class CartItem {
 
@@ -39,19 +43,23 @@ public class CartItem {
 
     /** Snapshot of the product's price when added */
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal unitPrice;
+    private Money unitPrice;
+
+    /** Last time the line was added to or changed; null only for lines older than the column */
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 
     /**
      * Calculates the total cost for this item (unitPrice * qty).
      * This value is not persisted in the database.
      */
     @Transient
-    public BigDecimal getLineTotal() {
-        BigDecimal price = unitPrice != null
+    public Money getLineTotal() {
+        Money price = unitPrice != null
                 ? unitPrice
-                : (product != null && product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO);
+                : (product != null && product.getPrice() != null ? Money.of(product.getPrice()) : Money.ZERO);
         int q = (quantity != null && quantity > 0) ? quantity : 0;
-        return price.multiply(BigDecimal.valueOf(q));
+        return price.times(q);
     }
 
     // Temporal
@@ -59,6 +67,7 @@ public class CartItem {
     @PreUpdate
     private void ensureDefaults() {
         if (quantity == null || quantity < 1) quantity = 1;
-        if (unitPrice == null && product != null) unitPrice = product.getPrice();
+        if (unitPrice == null && product != null) unitPrice = Money.of(product.getPrice());
+        updatedAt = Instant.now();
     }
 }
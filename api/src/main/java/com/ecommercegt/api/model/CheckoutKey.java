@@ -0,0 +1,43 @@
+package com.ecommercegt.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * Idempotency-Key of a completed checkout: a retry with the same key gets the same order back
+ * instead of paying again. Written in the checkout transaction, so it exists iff the order does.
+ */
+@Entity
+@Table(name = "checkout_keys", indexes = {
+        @Index(name = "ux_checkout_keys_user_key", columnList = "user_id, idem_key", unique = true),
+        @Index(name = "ix_checkout_keys_created", columnList = "created_at")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class CheckoutKey {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id: keys are only ever looked up by (user, key)
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String idemKey;
+
+    // Hex SHA-256 of the request's fingerprint; the same key with another request is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommercegt.api.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount in GTQ as a whole number of cents. Sums and per-line products are exact long arithmetic
+ * (overflow throws instead of wrapping); rounding only happens in {@link #percent(int)}, with the
+ * same HALF_UP rule the BigDecimal code used. Stored as numeric(12,2) through {@link MoneyConverter}
+ * and serialized as a plain decimal number, so neither the schema nor the JSON changes.
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /** Amounts with more than 2 decimals are rounded HALF_UP (columns are scale 2, so stored values never are). */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) return null;
+        return ofCents(amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, (long) quantity));
+    }
+
+    /** pct % of this amount, rounded to the cent HALF_UP (ties away from zero), like setScale(2, HALF_UP). */
+    public Money percent(int pct) {
+        long scaled = Math.multiplyExact(cents, (long) pct);
+        long q = scaled / 100;
+        long r = scaled % 100;
+        if (Math.abs(r) * 2 >= 100) q += Long.signum(scaled);
+        return ofCents(q);
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money o) {
+        return Long.compare(cents, o.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -2,7 +2,6 @@ package com.ecommercegt.api.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -14,7 +13,9 @@ public class Order {
 
     public enum Status { PLACED, SHIPPED, DELIVERED }
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence: ids come 50 per nextval, so checkout's inserts can be JDBC-batched
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     // Buyer who placed the order
@@ -27,13 +28,13 @@ public class Order {
     private Status status;
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal subtotal;
+    private Money subtotal;
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal platformFee;
+    private Money platformFee;
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal sellerAmount;
+    private Money sellerAmount;
 
     @Column(nullable = false)
     private Instant createdAt;
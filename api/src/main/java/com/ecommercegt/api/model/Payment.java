@@ -2,14 +2,15 @@ package com.ecommercegt.api.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity @Table(name = "payments")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Payment {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence: ids come 50 per nextval, so checkout's inserts can be JDBC-batched
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_id_seq", allocationSize = 50)
     private Long id;
 
     // One payment per order in this simple model
@@ -28,7 +29,7 @@ public class Payment {
     private String brand;
 
     @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
     @Column(nullable = false)
     private Instant paidAt;
@@ -5,13 +5,22 @@ import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Getter @Setter @NoArgsConstructor
 @Entity
-@Table(name = "products")
+// updates write only the changed columns: saving an edit or a moderation must not write back a
+// stock read earlier over units a checkout has taken since (ProductRepository#decrementStock)
+@DynamicUpdate
+@Table(name = "products", indexes = {
+        // keyset pagination of the catalog: (status [, category], createdAt desc, id desc)
+        @Index(name = "ix_products_status_created", columnList = "status, created_at DESC, id DESC"),
+        @Index(name = "ix_products_status_category_created", columnList = "status, category, created_at DESC, id DESC"),
+        @Index(name = "ix_products_owner_created", columnList = "owner_id, created_at DESC")
+})
 public class Product {
 
     public enum Status {
@@ -59,6 +68,13 @@ public class Product {
     @Column(nullable = false)
     private Integer stock;
 
+    /**
+     * Hot-product mode (flash sales): when > 0 the live stock is split over this many rows of
+     * product_stock_shards and {@link #stock} is a copy written back periodically (see HotStock).
+     */
+    @Column(name = "stock_shards")
+    private Integer stockShards;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Condition condition = Condition.NEW;
@@ -81,4 +97,8 @@ public class Product {
     public void onUpdate() {
         this.updatedAt = Instant.now();
     }
+
+    public boolean isHot() {
+        return stockShards != null && stockShards > 0;
+    }
 }
@@ -0,0 +1,28 @@
+package com.ecommercegt.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One slice of a hot product's stock. Checkouts take units from a random slice, so buyers of the
+ * same product lock different rows instead of queueing on the products row.
+ */
+@Entity
+@Table(name = "product_stock_shards",
+        uniqueConstraints = @UniqueConstraint(name = "ux_stock_shards_product_shard", columnNames = {"product_id", "shard"}))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StockShard {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id: shards are only ever addressed by (product, shard)
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Integer stock;
+}
@@ -1,10 +1,13 @@
 package com.ecommercegt.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 @Getter @Setter @NoArgsConstructor
 @Entity
 @Table(name = "users")
@@ -28,6 +31,11 @@ public class User {
     @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
     private boolean active = true;
 
+    // Tokens issued (iat) before this instant are rejected; set on suspension or role change
+    @JsonIgnore
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
+
     public User(String name, String email, String password, Role role) {
         this.name = name;
         this.email = email;
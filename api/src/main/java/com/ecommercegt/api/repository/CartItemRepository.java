@@ -4,7 +4,13 @@ import com.ecommercegt.api.model.Cart;
 import com.ecommercegt.api.model.CartItem;
 import com.ecommercegt.api.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +21,83 @@ import java.util.Optional;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByCart(Cart cart);
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+
+    /**
+     * Adds qty of the product to the user's cart in one statement: inserts the line or, on the
+     * (cart_id, product_id) conflict, adds to its quantity. Only APPROVED products with enough stock
+     * for the resulting quantity are touched. Returns 0 when nothing was written (no cart yet,
+     * product missing or not approved, or not enough stock).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = """
+      insert into {h-schema}cart_items (cart_id, product_id, quantity, unit_price, updated_at)
+      select c.id, p.id, :qty, p.price, now()
+      from {h-schema}carts c, {h-schema}products p
+      where c.user_id = :userId and p.id = :productId
+        and p.status = 'APPROVED' and p.stock >= :qty
+      on conflict (cart_id, product_id) do update
+        set quantity = cart_items.quantity + excluded.quantity,
+            unit_price = excluded.unit_price,
+            updated_at = excluded.updated_at
+        where (select s.stock from {h-schema}products s where s.id = excluded.product_id)
+              >= cart_items.quantity + excluded.quantity
+    """)
+    int upsertLine(@Param("userId") Long userId, @Param("productId") Long productId, @Param("qty") int qty);
+
+    // --- write-behind flush (absolute values, so replaying a change twice is harmless) ---
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+      insert into {h-schema}cart_items (cart_id, product_id, quantity, unit_price, updated_at)
+      values (:cartId, :productId, :qty, :unitPrice, now())
+      on conflict (cart_id, product_id) do update
+        set quantity = excluded.quantity,
+            unit_price = excluded.unit_price,
+            updated_at = excluded.updated_at
+    """)
+    void setLine(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                 @Param("qty") int qty, @Param("unitPrice") BigDecimal unitPrice);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id = :cartId and ci.product.id = :productId")
+    void deleteLine(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id = :cartId")
+    void deleteAllByCartId(@Param("cartId") Long cartId);
+
+    // --- abandoned-line compaction (CartCompactionJob): one bounded chunk per call, skipping rows
+    // a live cart transaction has locked ---
+
+    /** Gives lines from before the updated_at column a start date, so they age from now. */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+      update {h-schema}cart_items set updated_at = now()
+      where id in (select id from {h-schema}cart_items where updated_at is null
+                   limit :limit for update skip locked)
+    """)
+    int stampUndatedLines(@Param("limit") int limit);
+
+    /** Locks a chunk of lines untouched since {@code cutoff}: [line id, owner user id] rows. */
+    @Query(nativeQuery = true, value = """
+      select ci.id, c.user_id from {h-schema}cart_items ci
+      join {h-schema}carts c on c.id = ci.cart_id
+      where ci.updated_at < :cutoff
+      limit :limit for update of ci skip locked
+    """)
+    List<Object[]> lockStaleLines(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /** Locks a chunk of lines whose product is no longer APPROVED: [line id, owner user id] rows. */
+    @Query(nativeQuery = true, value = """
+      select ci.id, c.user_id from {h-schema}cart_items ci
+      join {h-schema}carts c on c.id = ci.cart_id
+      join {h-schema}products p on p.id = ci.product_id
+      where p.status <> 'APPROVED'
+      limit :limit for update of ci skip locked
+    """)
+    List<Object[]> lockUnavailableLines(@Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,15 +1,38 @@
 package com.ecommercegt.api.repository;
 
 import com.ecommercegt.api.model.Cart;
-import com.ecommercegt.api.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 /**
  * Repository for Cart entity.
- * Provides basic CRUD and a finder by owner (User).
+ * Provides basic CRUD and a finder by owner id.
  */
 public interface CartRepository extends JpaRepository<Cart, Long> {
-    Optional<Cart> findByUser(User owner);
+    Optional<Cart> findByUserId(Long userId);
+    boolean existsByUserId(Long userId);
+
+    // Cart + lines + their products in one statement (what every cart response renders)
+    @Query("""
+      select c from Cart c
+        left join fetch c.items i
+        left join fetch i.product
+      where c.user.id = :userId
+    """)
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+
+    // Compaction: carts left without lines (recreated on the next cart request). A cart whose
+    // first line is being inserted right now is key-share locked, so skip locked leaves it alone.
+    @Modifying
+    @Query(nativeQuery = true, value = """
+      delete from {h-schema}carts
+      where id in (select c.id from {h-schema}carts c
+                   where not exists (select 1 from {h-schema}cart_items ci where ci.cart_id = c.id)
+                   limit :limit for update skip locked)
+    """)
+    int deleteEmptyCarts(@Param("limit") int limit);
 }
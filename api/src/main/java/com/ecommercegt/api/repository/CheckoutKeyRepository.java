@@ -0,0 +1,24 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.model.CheckoutKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface CheckoutKeyRepository extends JpaRepository<CheckoutKey, Long> {
+
+    Optional<CheckoutKey> findByUserIdAndIdemKey(Long userId, String idemKey);
+
+    // An expired key being reused: its old row goes before the new one is inserted
+    @Modifying
+    @Query("delete from CheckoutKey k where k.userId = :userId and k.idemKey = :idemKey and k.createdAt < :before")
+    int deleteExpired(@Param("userId") Long userId, @Param("idemKey") String idemKey, @Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from CheckoutKey k where k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -1,5 +1,21 @@
 package com.ecommercegt.api.repository;
 import com.ecommercegt.api.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {}
+import java.time.Instant;
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // (product id, units sold) since the given instant
+    @Query("""
+      select oi.product.id, sum(oi.quantity)
+      from OrderItem oi
+        join oi.order o
+      where o.createdAt >= :since
+      group by oi.product.id
+    """)
+    List<Object[]> unitsSoldSince(@Param("since") Instant since);
+}
@@ -1,10 +1,22 @@
 package com.ecommercegt.api.repository;
 
 import com.ecommercegt.api.model.Order;
-import com.ecommercegt.api.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findAllByBuyerOrderByCreatedAtDesc(User buyer);
+    List<Order> findAllByBuyerIdOrderByCreatedAtDesc(Long buyerId);
+
+    // Order + lines + their products in one statement (a replayed checkout response)
+    @Query("""
+      select o from Order o
+        left join fetch o.items i
+        left join fetch i.product
+      where o.id = :id
+    """)
+    Optional<Order> findWithItemsById(@Param("id") Long id);
 }
\ No newline at end of file
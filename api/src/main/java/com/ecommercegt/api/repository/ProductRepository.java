@@ -1,12 +1,46 @@
 package com.ecommercegt.api.repository;
 
 import com.ecommercegt.api.model.Product;
-import com.ecommercegt.api.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findAllByOwnerOrderByCreatedAtDesc(User owner);
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductStockRepository {
+    // Full rows for the catalog snapshot; read-only so Hibernate keeps no dirty-checking copies
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Product> findAllByStatusOrderByCreatedAtDesc(Product.Status status);
+
+    // Listing projections: only the columns a card shows (description is loaded by the detail endpoints)
+    @Query("""
+      select new com.ecommercegt.api.repository.ProductSummary(
+        p.id, p.name, p.imageUrl, p.price, p.stock, p.condition, p.category, p.status, p.createdAt, p.owner.id)
+      from Product p
+      where p.owner.id = :ownerId
+      order by p.createdAt desc, p.id desc
+    """)
+    List<ProductSummary> findSummariesByOwner(@Param("ownerId") Long ownerId);
+
+    @Query("""
+      select new com.ecommercegt.api.repository.ProductSummary(
+        p.id, p.name, p.imageUrl, p.price, p.stock, p.condition, p.category, p.status, p.createdAt, p.owner.id)
+      from Product p
+      where p.status = :status
+      order by p.createdAt desc, p.id desc
+    """)
+    List<ProductSummary> findSummariesByStatus(@Param("status") Product.Status status);
+
+    // Row lock for switching a product in or out of hot-stock mode
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,48 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Composable filters for product listings. A null argument means "no filter".
+ */
+public final class ProductSpecs {
+
+    private ProductSpecs() {}
+
+    public static Specification<Product> status(Product.Status status) {
+        return (root, q, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Product> category(Product.Category category) {
+        return (root, q, cb) -> category == null ? null : cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Product> condition(Product.Condition condition) {
+        return (root, q, cb) -> condition == null ? null : cb.equal(root.get("condition"), condition);
+    }
+
+    public static Specification<Product> priceBetween(BigDecimal min, BigDecimal max) {
+        return (root, q, cb) -> {
+            if (min != null && max != null) return cb.between(root.get("price"), min, max);
+            if (min != null) return cb.greaterThanOrEqualTo(root.get("price"), min);
+            if (max != null) return cb.lessThanOrEqualTo(root.get("price"), max);
+            return null;
+        };
+    }
+
+    public static Specification<Product> owner(Long ownerId) {
+        return (root, q, cb) -> ownerId == null ? null : cb.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    /** Keyset condition for "createdAt desc, id desc": rows strictly after the (createdAt, id) cursor. */
+    public static Specification<Product> after(Instant createdAt, Long id) {
+        return (root, q, cb) -> createdAt == null ? null : cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))
+        );
+    }
+}
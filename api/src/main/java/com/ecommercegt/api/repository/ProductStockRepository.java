@@ -0,0 +1,19 @@
+package com.ecommercegt.api.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock writes that must not lose concurrent updates (custom fragment of {@link ProductRepository}).
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Takes {@code qty} units from each product with {@code stock = stock - qty where stock >= qty},
+     * in ascending id order (concurrent checkouts lock rows in the same order: no deadlocks) and as
+     * one JDBC batch, inside the caller's transaction. Returns the ids that did not have enough
+     * stock; when it is not empty the caller must roll back, the other rows were already taken.
+     * Products in hot mode (stock_shards > 0) are left alone and come back in that list too.
+     */
+    List<Long> decrementStock(Map<Long, Integer> qtyByProduct);
+}
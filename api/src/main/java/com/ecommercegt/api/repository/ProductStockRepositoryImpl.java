@@ -0,0 +1,47 @@
+package com.ecommercegt.api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final String sql;
+
+    ProductStockRepositoryImpl(@Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        String table = schema.isBlank() ? "products" : schema + ".products";
+        // hot products (stock_shards > 0) keep their live stock in the shards, see HotStock
+        this.sql = "update " + table + " set stock = stock - ? where id = ? and stock >= ? and coalesce(stock_shards, 0) = 0";
+    }
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> qtyByProduct) {
+        var sorted = new TreeMap<>(qtyByProduct);
+        var ids = new ArrayList<>(sorted.keySet());
+        int[] counts = em.unwrap(Session.class).doReturningWork(conn -> {
+            try (var ps = conn.prepareStatement(sql)) {
+                for (var e : sorted.entrySet()) {
+                    ps.setInt(1, e.getValue());
+                    ps.setLong(2, e.getKey());
+                    ps.setInt(3, e.getValue());
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            }
+        });
+        var missing = new ArrayList<Long>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) missing.add(ids.get(i));
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.model.Product;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Listing columns of a product (no description), selected with a constructor expression:
+ * rows come back as plain records, never as managed entities.
+ */
+public record ProductSummary(
+        Long id,
+        String name,
+        String imageUrl,
+        BigDecimal price,
+        Integer stock,
+        Product.Condition condition,
+        Product.Category category,
+        Product.Status status,
+        Instant createdAt,
+        Long ownerId
+) {}
@@ -0,0 +1,31 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Single indexed lookup; the user is needed to mint the new access token
+    @Query("select t from RefreshToken t join fetch t.user where t.tokenHash = :hash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("hash") String hash);
+
+    // Marks the token as used only if nobody else did it first (concurrent refresh = reuse)
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") Instant now);
+
+    // Expired tokens are useless either way; revoked ones only matter until their family is gone
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now or t.revokedAt < :revokedBefore")
+    int deleteDead(@Param("now") Instant now, @Param("revokedBefore") Instant revokedBefore);
+}
@@ -13,7 +13,7 @@ public interface ReportRepository extends JpaRepository<Order, Long> {
 
     // 1) Top productos más vendidos (unidades + revenue) en intervalo
     @Query("""
-      select p.id, p.name, sum(oi.quantity) as units, sum(oi.quantity * oi.unitPrice) as revenue
+      select p.id, p.name, sum(oi.quantity) as units, sum(oi.lineTotal) as revenue
       from OrderItem oi
         join oi.order o
         join oi.product p
@@ -25,7 +25,7 @@ public interface ReportRepository extends JpaRepository<Order, Long> {
 
     // 2) Top clientes (compradores) por gasto total en intervalo
     @Query("""
-      select u.id, u.name, count(distinct o.id) as ordersCount, sum(oi.quantity) as items, sum(oi.quantity * oi.unitPrice) as spent
+      select u.id, u.name, count(distinct o.id) as ordersCount, sum(oi.quantity) as items, sum(oi.lineTotal) as spent
       from OrderItem oi
         join oi.order o
         join o.buyer u
@@ -37,7 +37,7 @@ public interface ReportRepository extends JpaRepository<Order, Long> {
 
     // 3) Top vendedores por unidades vendidas en intervalo
     @Query("""
-      select u.id, u.name, sum(oi.quantity) as itemsSold, sum(oi.quantity * oi.unitPrice) as revenue
+      select u.id, u.name, sum(oi.quantity) as itemsSold, sum(oi.lineTotal) as revenue
       from OrderItem oi
         join oi.order o
         join oi.product p
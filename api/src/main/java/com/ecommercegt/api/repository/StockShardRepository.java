@@ -0,0 +1,63 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.model.StockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockShardRepository extends JpaRepository<StockShard, Long> {
+
+    // Plain read (no lock) to see where units are left
+    List<StockShard> findAllByProductIdOrderByShard(Long productId);
+
+    // Locks every shard: nobody can take units while the stock is folded back
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockShard s where s.productId = :productId order by s.shard")
+    List<StockShard> lockAll(@Param("productId") Long productId);
+
+    // Same conditional decrement as ProductStockRepository, on one shard row; a shard another
+    // checkout has locked is skipped (0 rows) instead of waited for
+    @Modifying
+    @Query(nativeQuery = true, value = """
+      update {h-schema}product_stock_shards set stock = stock - :qty
+      where id = (select id from {h-schema}product_stock_shards
+                  where product_id = :productId and shard = :shard and stock >= :qty
+                  for update skip locked)
+    """)
+    int takeIfFree(@Param("productId") Long productId, @Param("shard") int shard, @Param("qty") int qty);
+
+    // Waits for the shard's lock; used when units must be gathered from several shards
+    @Modifying
+    @Query(nativeQuery = true, value = """
+      update {h-schema}product_stock_shards set stock = stock - :qty
+      where product_id = :productId and shard = :shard and stock >= :qty
+    """)
+    int take(@Param("productId") Long productId, @Param("shard") int shard, @Param("qty") int qty);
+
+    @Modifying
+    @Query("delete from StockShard s where s.productId = :productId")
+    void deleteAllByProductId(@Param("productId") Long productId);
+
+    // [product id, products.stock, shard total] of the hot products whose stock copy has drifted
+    @Query(nativeQuery = true, value = """
+      select p.id, p.stock, coalesce(sum(s.stock), 0) from {h-schema}products p
+      left join {h-schema}product_stock_shards s on s.product_id = p.id
+      where p.stock_shards > 0
+      group by p.id, p.stock
+      having p.stock <> coalesce(sum(s.stock), 0)
+    """)
+    List<Object[]> findDrifted();
+
+    // Writes a shard total back to products.stock, only if the copy is still the one that was read
+    @Modifying
+    @Query(nativeQuery = true, value = """
+      update {h-schema}products set stock = :total
+      where id = :productId and stock = :seen and stock_shards > 0
+    """)
+    int writeBack(@Param("productId") Long productId, @Param("seen") int seen, @Param("total") int total);
+}
@@ -3,6 +3,7 @@ package com.ecommercegt.api.repository;
 import com.ecommercegt.api.model.Role;
 import com.ecommercegt.api.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +12,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     List<User> findByRole(Role role);
+
+    // (id, tokensValidAfter, active) of every user whose tokens may be revoked
+    @Query("select u.id, u.tokensValidAfter, u.active from User u where u.tokensValidAfter is not null or u.active = false")
+    List<Object[]> findRevocationEpochs();
 }
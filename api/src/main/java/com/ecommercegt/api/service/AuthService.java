@@ -5,20 +5,22 @@ import com.ecommercegt.api.model.Role;
 import com.ecommercegt.api.model.User;
 import com.ecommercegt.api.repository.UserRepository;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AuthService {
     private final UserRepository users;
-    private final PasswordEncoder encoder;
+    private final PasswordHashingService hashing;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokens;
 
-    public AuthService(UserRepository users, PasswordEncoder encoder, JwtService jwtService) {
+    public AuthService(UserRepository users, PasswordHashingService hashing, JwtService jwtService,
+                       RefreshTokenService refreshTokens) {
         this.users = users;
-        this.encoder = encoder;
+        this.hashing = hashing;
         this.jwtService = jwtService;
+        this.refreshTokens = refreshTokens;
     }
 
     public AuthDtos.UserResponse register(AuthDtos.RegisterRequest req) {
@@ -28,7 +30,7 @@ public class AuthService {
         }
 
         // Encode password
-        String hashed = encoder.encode(req.password());
+        String hashed = hashing.encode(req.password());
 
         // Creates user entity
         User u = new User(req.name(), req.email(), hashed, Role.COMMON);
@@ -50,11 +52,16 @@ public class AuthService {
         if (!user.isActive()) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario suspendido");
         }
-        if (!encoder.matches(req.password(), user.getPassword())) {
+        if (!hashing.matches(req.password(), user.getPassword())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Credenciales inválidas");
         }
+        // BCrypt cost was raised since this hash was stored: rehash with the current cost
+        if (hashing.needsRehash(user.getPassword())) {
+            user.setPassword(hashing.encode(req.password()));
+            users.save(user);
+        }
         String token = jwtService.generate(user.getId(), user.getEmail(), user.getRole().name());
-        return new AuthDtos.AuthResponse(token);
+        return new AuthDtos.AuthResponse(token, refreshTokens.issue(user));
     }
 
 }
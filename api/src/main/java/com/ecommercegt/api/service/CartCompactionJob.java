@@ -0,0 +1,130 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.CartChangedEvent;
+import com.ecommercegt.api.repository.CartItemRepository;
+import com.ecommercegt.api.repository.CartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Nightly cleanup of abandoned carts: deletes lines untouched for {@code app.cart.compaction.maxAge},
+ * lines whose product is no longer APPROVED, and carts left empty.
+ * <p>
+ * Work is done in chunks of {@code batchSize} rows, each in its own short transaction, with a
+ * pause in between; rows locked by a live cart request are skipped (next run gets them), so the
+ * job never makes a buyer wait. Progress is exported as {@code cart.compaction.*} metrics.
+ * Owners of deleted lines get a {@link CartChangedEvent} (their cart ETag moves) and, with
+ * write-behind on, their in-memory cart is dropped so it is reloaded without those lines.
+ */
+@Component
+public class CartCompactionJob {
+
+    private final CartRepository carts;
+    private final CartItemRepository items;
+    private final TransactionTemplate tx;
+    private final ApplicationEventPublisher events;
+    private final WriteBehindCartStore writeBehind; // null unless enabled
+    private final Duration maxAge;
+    private final int batchSize;
+    private final long pauseMs;
+
+    private final Counter staleLines;
+    private final Counter unavailableLines;
+    private final Counter emptyCarts;
+    private final Timer runs;
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+
+    public CartCompactionJob(CartRepository carts, CartItemRepository items, PlatformTransactionManager txManager,
+                             MeterRegistry registry, ApplicationEventPublisher events,
+                             Optional<WriteBehindCartStore> writeBehind,
+                             @Value("${app.cart.compaction.maxAge:30d}") Duration maxAge,
+                             @Value("${app.cart.compaction.batchSize:500}") int batchSize,
+                             @Value("${app.cart.compaction.pauseMs:50}") long pauseMs) {
+        this.carts = carts;
+        this.items = items;
+        this.tx = new TransactionTemplate(txManager);
+        this.events = events;
+        this.writeBehind = writeBehind.orElse(null);
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+
+        this.staleLines = Counter.builder("cart.compaction.deleted").tag("what", "stale-line").register(registry);
+        this.unavailableLines = Counter.builder("cart.compaction.deleted").tag("what", "unavailable-line").register(registry);
+        this.emptyCarts = Counter.builder("cart.compaction.deleted").tag("what", "empty-cart").register(registry);
+        this.runs = Timer.builder("cart.compaction.runs").register(registry);
+        Gauge.builder("cart.compaction.lastRun.deleted", lastRunDeleted, AtomicLong::get).register(registry);
+    }
+
+    @Scheduled(cron = "${app.cart.compaction.cron:0 30 3 * * *}")
+    public void run() {
+        runs.record(() -> {
+            var cutoff = Instant.now().minus(maxAge);
+            inChunks(items::stampUndatedLines, null);
+            long deleted = deleteLines(n -> items.lockStaleLines(cutoff, n), staleLines)
+                    + deleteLines(items::lockUnavailableLines, unavailableLines)
+                    + inChunks(carts::deleteEmptyCarts, emptyCarts); // an empty cart reads the same as none
+            lastRunDeleted.set(deleted);
+        });
+    }
+
+    // Locks a chunk of [line id, user id] rows, deletes those lines and tells their owners' carts
+    private long deleteLines(IntFunction<List<Object[]>> lock, Counter progress) {
+        return inChunks(n -> {
+            var rows = lock.apply(n);
+            if (rows.isEmpty()) return 0;
+            var ids = new ArrayList<Long>(rows.size());
+            var owners = new HashSet<Long>();
+            for (var r : rows) {
+                ids.add(((Number) r[0]).longValue());
+                owners.add(((Number) r[1]).longValue());
+            }
+            items.deleteAllByIdIn(ids);
+            for (var userId : owners) events.publishEvent(new CartChangedEvent(userId)); // delivered after commit
+            if (writeBehind != null) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        writeBehind.evict(owners);
+                    }
+                });
+            }
+            return rows.size();
+        }, progress);
+    }
+
+    // Repeats one bounded statement until a chunk comes back short; returns the rows it touched
+    private long inChunks(IntUnaryOperator chunk, Counter progress) {
+        long total = 0;
+        while (true) {
+            Integer rows = tx.execute(s -> chunk.applyAsInt(batchSize));
+            int n = rows != null ? rows : 0;
+            total += n;
+            if (progress != null) progress.increment(n);
+            if (n < batchSize) return total;
+            try {
+                Thread.sleep(pauseMs); // let live traffic have the connection pool and the disk
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return total;
+            }
+        }
+    }
+}
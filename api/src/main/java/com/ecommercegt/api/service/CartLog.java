@@ -0,0 +1,162 @@
+package com.ecommercegt.api.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only local log of cart mutations for {@link WriteBehindCartStore}. One text record per line,
+ * always with absolute values (a line's quantity, never a delta) so replaying is idempotent:
+ * <pre>
+ *   S userId productId qty unitCents   set a line
+ *   R userId productId                 remove a line
+ *   C userId                           clear the cart
+ * </pre>
+ * The log is a sequence of segment files ({@code <logFile>.000001}, ...): records go to the active
+ * one, {@link #roll()} seals it and starts the next, and the owner deletes a sealed segment once
+ * everything in it is in the database. A torn last line (crash mid-write) is ignored on replay.
+ */
+class CartLog implements AutoCloseable {
+
+    sealed interface Record permits Set, Remove, Clear {
+        long userId();
+    }
+    record Set(long userId, long productId, int qty, long unitCents) implements Record {}
+    record Remove(long userId, long productId) implements Record {}
+    record Clear(long userId) implements Record {}
+
+    private final Path dir;
+    private final String prefix;
+    private final boolean fsync;
+    private final List<Long> recovered;
+
+    // --- guarded by this ---
+    private long activeSeq;
+    private FileChannel channel;
+    private long activeSize;
+
+    CartLog(Path file, boolean fsync) {
+        var abs = file.toAbsolutePath();
+        this.dir = abs.getParent();
+        this.prefix = abs.getFileName() + ".";
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(dir);
+            // a single-file log from before segments existed is replayed as segment 0
+            if (Files.exists(abs) && !Files.exists(segment(0))) Files.move(abs, segment(0));
+            this.recovered = existingSegments();
+            this.activeSeq = recovered.isEmpty() ? 1 : recovered.get(recovered.size() - 1) + 1;
+            this.channel = FileChannel.open(segment(activeSeq), CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el log de carritos: " + file, e);
+        }
+    }
+
+    synchronized void append(Record r) {
+        String line = switch (r) {
+            case Set s -> "S " + s.userId() + " " + s.productId() + " " + s.qty() + " " + s.unitCents();
+            case Remove rm -> "R " + rm.userId() + " " + rm.productId();
+            case Clear c -> "C " + c.userId();
+        };
+        var buf = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (buf.hasRemaining()) activeSize += channel.write(buf);
+            if (fsync) channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el log de carritos", e);
+        }
+    }
+
+    /** Segments left by the previous run, oldest first; replay them in this order. */
+    List<Long> recovered() {
+        return recovered;
+    }
+
+    synchronized List<Record> read(long seq) {
+        var out = new ArrayList<Record>();
+        try {
+            String text = Files.readString(segment(seq), StandardCharsets.ISO_8859_1);
+            // only newline-terminated records were fully written
+            for (String line : text.substring(0, text.lastIndexOf('\n') + 1).split("\n")) {
+                var r = parse(line);
+                if (r != null) out.add(r);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el log de carritos", e);
+        }
+        return out;
+    }
+
+    /** Seals the active segment and starts the next one. Returns the sealed segment, -1 if it was empty. */
+    synchronized long roll() {
+        if (activeSize == 0) return -1;
+        try {
+            channel.force(true);
+            channel.close();
+            long sealed = activeSeq++;
+            channel = FileChannel.open(segment(activeSeq), CREATE, WRITE, APPEND);
+            activeSize = 0;
+            return sealed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo rotar el log de carritos", e);
+        }
+    }
+
+    /** Deletes a sealed segment; callers make sure all of its records are already in the database. */
+    synchronized void delete(long seq) {
+        if (seq == activeSeq) throw new IllegalArgumentException("active segment");
+        try {
+            Files.deleteIfExists(segment(seq));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el log de carritos", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private Path segment(long seq) {
+        return dir.resolve(prefix + String.format("%06d", seq));
+    }
+
+    private List<Long> existingSegments() throws IOException {
+        var out = new ArrayList<Long>();
+        try (var files = Files.list(dir)) {
+            for (var f : (Iterable<Path>) files::iterator) {
+                String name = f.getFileName().toString();
+                if (!name.startsWith(prefix)) continue;
+                try {
+                    out.add(Long.parseLong(name.substring(prefix.length())));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        out.sort(null);
+        return out;
+    }
+
+    private static Record parse(String line) {
+        var f = line.trim().split(" ");
+        try {
+            return switch (f[0]) {
+                case "S" -> new Set(Long.parseLong(f[1]), Long.parseLong(f[2]), Integer.parseInt(f[3]), Long.parseLong(f[4]));
+                case "R" -> new Remove(Long.parseLong(f[1]), Long.parseLong(f[2]));
+                case "C" -> new Clear(Long.parseLong(f[1]));
+                default -> null;
+            };
+        } catch (RuntimeException e) {
+            return null; // foreign line
+        }
+    }
+}
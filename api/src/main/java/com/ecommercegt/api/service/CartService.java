@@ -1,23 +1,32 @@
 package com.ecommercegt.api.service;
 
+import com.ecommercegt.api.event.CartChangedEvent;
 import com.ecommercegt.api.model.Cart;
 import com.ecommercegt.api.model.CartItem;
+import com.ecommercegt.api.model.Money;
 import com.ecommercegt.api.model.Product;
-import com.ecommercegt.api.model.User;
 import com.ecommercegt.api.repository.CartItemRepository;
 import com.ecommercegt.api.repository.CartRepository;
 import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.*;
+
 /**
  * Business logic for the shopping cart.
  * - Create or find a cart for the user
  * - Add/merge items
  * - Update item quantity
  * - Remove items and clear cart
+ * Methods take the authenticated user's id; the User row itself is never loaded.
+ * The cart is read with its lines and their products in a single fetch-join query.
+ * Every quantity change also holds that much stock for a while ({@link StockReservations}).
+ * With app.cart.writeBehind.enabled every call goes to the in-memory {@link WriteBehindCartStore}.
  */
 @Service
 public class CartService {
@@ -25,21 +34,37 @@ public class CartService {
     private final CartRepository carts;
     private final CartItemRepository items;
     private final ProductRepository products;
+    private final UserRepository users;
+    private final ApplicationEventPublisher events;
+    private final StockReservations reservations;
+    private final WriteBehindCartStore writeBehind; // null unless enabled
+
+    /** One step of a batch edit: ADD uses productId, SET and REMOVE use itemId. SET with qty < 1 removes. */
+    public record CartOp(Type type, Long productId, Long itemId, Integer qty) {
+        public enum Type { ADD, SET, REMOVE, CLEAR }
+    }
 
-    public CartService(CartRepository carts, CartItemRepository items, ProductRepository products) {
+    public CartService(CartRepository carts, CartItemRepository items, ProductRepository products, UserRepository users,
+                       ApplicationEventPublisher events, StockReservations reservations,
+                       Optional<WriteBehindCartStore> writeBehind) {
         this.carts = carts;
         this.items = items;
         this.products = products;
+        this.users = users;
+        this.events = events;
+        this.reservations = reservations;
+        this.writeBehind = writeBehind.orElse(null);
     }
 
     /**
      * Get existing cart for user or create a new one.
      */
     @Transactional
-    public Cart getOrCreate(User user) {
-        return carts.findByUser(user).orElseGet(() -> {
+    public Cart getOrCreate(Long userId) {
+        if (writeBehind != null) return writeBehind.view(userId);
+        return carts.findWithItemsByUserId(userId).orElseGet(() -> {
             var c = new Cart();
-            c.setUser(user);
+            c.setUser(users.getReferenceById(userId)); // proxy, only the FK is needed
             return carts.save(c);
         });
     }
@@ -47,46 +72,37 @@ public class CartService {
     /**
      * Add a product to the cart (merge if the same product already exists).
      * Validates: qty >= 1, product exists, APPROVED status, sufficient stock.
+     * The write is a single upsert that also checks status and stock, so concurrent adds of the
+     * same product cannot create duplicate lines or overshoot the stock. The new line quantity
+     * is then held; if other buyers' holds leave too little, the upsert is rolled back.
      */
     @Transactional
-    public Cart addItem(User user, Long productId, Integer qty) {
+    public Cart addItem(Long userId, Long productId, Integer qty) {
         int reqQty = (qty == null || qty < 1) ? 1 : qty;
+        if (writeBehind != null) return writeBehind.apply(userId, List.of(new CartOp(CartOp.Type.ADD, productId, null, reqQty)));
 
-        var product = products.findById(productId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
-
-        if (product.getStatus() != Product.Status.APPROVED) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Producto no disponible");
-        }
-        Integer stock = product.getStock();
-        if (stock == null || stock < reqQty) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock insuficiente");
+        int rows = items.upsertLine(userId, productId, reqQty);
+        if (rows == 0 && !carts.existsByUserId(userId)) {
+            // first add ever: create the cart and try again
+            getOrCreate(userId);
+            rows = items.upsertLine(userId, productId, reqQty);
         }
+        if (rows == 0) throw rejection(productId);
 
-        var cart = getOrCreate(user);
+        var cart = getOrCreate(userId);
+        hold(userId, cart, List.of(productId));
+        events.publishEvent(new CartChangedEvent(userId));
+        return cart;
+    }
 
-        // Try to merge with existing line for the same product (repository lookup)
-        var existingOpt = items.findByCartAndProduct(cart, product);
-        if (existingOpt.isPresent()) {
-            var existing = existingOpt.get();
-            int newQty = (existing.getQuantity() == null ? 0 : existing.getQuantity()) + reqQty;
-            if (stock == null || stock < newQty) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock insuficiente");
-            }
-            existing.setQuantity(newQty);
-            existing.setUnitPrice(product.getPrice()); // refresh price snapshot
-            items.save(existing);
-        } else {
-            var ci = new CartItem();
-            ci.setCart(cart);
-            ci.setProduct(product);
-            ci.setQuantity(reqQty);
-            ci.setUnitPrice(product.getPrice()); // snapshot
-            items.save(ci);
-            cart.getItems().add(ci);
+    // Only on the failure path: find out why the upsert wrote nothing
+    private ResponseStatusException rejection(Long productId) {
+        var product = products.findById(productId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
+        if (product.getStatus() != Product.Status.APPROVED) {
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Producto no disponible");
         }
-
-        return carts.save(cart);
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock insuficiente");
     }
 
     /**
@@ -94,10 +110,11 @@ public class CartService {
      * Validates: qty >= 1, item belongs to user's cart, sufficient stock.
      */
     @Transactional
-    public Cart updateQty(User user, Long itemId, int qty) {
+    public Cart updateQty(Long userId, Long itemId, int qty) {
         int reqQty = (qty < 1) ? 1 : qty;
+        if (writeBehind != null) return writeBehind.apply(userId, List.of(new CartOp(CartOp.Type.SET, null, itemId, reqQty)));
 
-        var cart = carts.findByUser(user).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
+        var cart = carts.findWithItemsByUserId(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
 
         var item = cart.getItems().stream()
                 .filter(ci -> ci.getId().equals(itemId))
@@ -111,18 +128,115 @@ public class CartService {
         }
 
         item.setQuantity(reqQty);
-        item.setUnitPrice(product.getPrice());
+        item.setUnitPrice(Money.of(product.getPrice()));
+        hold(userId, cart, List.of(product.getId()));
         items.save(item);
 
+        events.publishEvent(new CartChangedEvent(userId));
         return carts.save(cart);
     }
 
+    /**
+     * Apply a burst of edits in one transaction, in order. ADDs go through the same single-statement
+     * upsert as {@link #addItem}, so they merge with concurrent adds of the product instead of
+     * racing them; SET/REMOVE/CLEAR change the loaded cart and are written by one flush (JDBC-batched).
+     * The cart is re-read only when a step after an ADD needs it. Any invalid step rolls the batch back.
+     */
+    @Transactional
+    public Cart applyOps(Long userId, List<CartOp> ops) {
+        if (writeBehind != null) return ops == null || ops.isEmpty() ? writeBehind.view(userId) : writeBehind.apply(userId, ops);
+        var cart = getOrCreate(userId);
+        if (ops == null || ops.isEmpty()) return cart;
+        var before = quantities(cart);
+
+        boolean stale = false; // an upsert cleared the persistence context: the loaded cart is detached
+        for (var op : ops) {
+            if (op.type() == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Operación inválida");
+            if (op.type() == CartOp.Type.ADD) {
+                if (op.productId() == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado");
+                int add = (op.qty() == null || op.qty() < 1) ? 1 : op.qty();
+                if (items.upsertLine(userId, op.productId(), add) == 0) throw rejection(op.productId());
+                stale = true;
+                continue;
+            }
+            if (stale) {
+                cart = reload(userId);
+                stale = false;
+            }
+            switch (op.type()) {
+                case SET -> {
+                    var line = line(cart, op.itemId());
+                    if (op.qty() == null || op.qty() < 1) cart.getItems().remove(line); // orphanRemoval deletes it
+                    else setQuantity(line, op.qty());
+                }
+                case REMOVE -> cart.getItems().remove(line(cart, op.itemId()));
+                case CLEAR -> cart.getItems().clear();
+                default -> throw new IllegalStateException(op.type().name());
+            }
+        }
+        if (stale) cart = reload(userId);
+
+        var after = quantities(cart);
+        var changed = new HashSet<>(before.keySet());
+        changed.addAll(after.keySet());
+        changed.removeIf(pid -> Objects.equals(before.get(pid), after.get(pid)));
+        hold(userId, cart, changed);
+
+        events.publishEvent(new CartChangedEvent(userId));
+        return cart;
+    }
+
+    private Cart reload(Long userId) {
+        return carts.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
+    }
+
+    // Holds the cart's line quantity of each product (0 when it has no line: releases)
+    private void hold(Long userId, Cart cart, Collection<Long> productIds) {
+        var qty = new HashMap<Long, Integer>();
+        var stock = new HashMap<Long, Integer>();
+        for (var pid : productIds) qty.put(pid, 0);
+        for (var ci : cart.getItems()) {
+            var p = ci.getProduct();
+            if (!qty.containsKey(p.getId())) continue;
+            qty.put(p.getId(), ci.getQuantity());
+            stock.put(p.getId(), p.getStock() != null ? p.getStock() : 0);
+        }
+        reservations.hold(userId, qty, pid -> stock.getOrDefault(pid, 0));
+    }
+
+    private static Map<Long, Integer> quantities(Cart cart) {
+        var out = new HashMap<Long, Integer>();
+        for (var ci : cart.getItems()) out.put(ci.getProduct().getId(), ci.getQuantity());
+        return out;
+    }
+
+    private static CartItem line(Cart cart, Long itemId) {
+        return cart.getItems().stream()
+                .filter(ci -> ci.getId() != null && ci.getId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ítem no existe"));
+    }
+
+    private static void setQuantity(CartItem line, int qty) {
+        var product = line.getProduct();
+        if (product.getStock() == null || product.getStock() < qty) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock insuficiente");
+        }
+        line.setQuantity(qty);
+        line.setUnitPrice(Money.of(product.getPrice()));
+    }
+
     /**
      * Remove a single item from the user's cart.
      */
     @Transactional
-    public void removeItem(User user, Long itemId) {
-        var cart = carts.findByUser(user).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
+    public void removeItem(Long userId, Long itemId) {
+        if (writeBehind != null) {
+            writeBehind.apply(userId, List.of(new CartOp(CartOp.Type.REMOVE, null, itemId, null)));
+            return;
+        }
+        var cart = carts.findWithItemsByUserId(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
         var toRemove = cart.getItems().stream()
                 .filter(ci -> ci.getId().equals(itemId))
                 .findFirst()
@@ -130,16 +244,25 @@ public class CartService {
         cart.getItems().remove(toRemove);
         items.delete(toRemove);
         carts.save(cart);
+        reservations.releaseAfterCommit(userId, List.of(toRemove.getProduct().getId()));
+        events.publishEvent(new CartChangedEvent(userId));
     }
 
     /**
      * Clear all items from the user's cart.
      */
     @Transactional
-    public void clear(User user) {
-        var cart = carts.findByUser(user).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
+    public void clear(Long userId) {
+        if (writeBehind != null) {
+            writeBehind.apply(userId, List.of(new CartOp(CartOp.Type.CLEAR, null, null, null)));
+            return;
+        }
+        var cart = carts.findWithItemsByUserId(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Carrito no existe"));
+        var productIds = quantities(cart).keySet();
         items.deleteAll(cart.getItems());
         cart.getItems().clear();
         carts.save(cart);
+        reservations.releaseAfterCommit(userId, productIds);
+        events.publishEvent(new CartChangedEvent(userId));
     }
 }
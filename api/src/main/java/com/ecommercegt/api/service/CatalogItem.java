@@ -0,0 +1,43 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.model.Product;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Immutable listing view of a product, detached from JPA (safe to share between threads).
+ */
+public record CatalogItem(
+        Long id,
+        String name,
+        String description,
+        String imageUrl,
+        BigDecimal price,
+        Integer stock,
+        Product.Condition condition,
+        Product.Category category,
+        Product.Status status,
+        Instant createdAt,
+        Long ownerId
+) {
+    public static CatalogItem of(Product p) {
+        return new CatalogItem(
+                p.getId(),
+                p.getName(),
+                p.getDescription(),
+                p.getImageUrl(),
+                p.getPrice(),
+                p.getStock(),
+                p.getCondition(),
+                p.getCategory(),
+                p.getStatus(),
+                p.getCreatedAt(),
+                p.getOwner() != null ? p.getOwner().getId() : null
+        );
+    }
+
+    public CatalogItem withStock(int newStock) {
+        return new CatalogItem(id, name, description, imageUrl, price, newStock, condition, category, status, createdAt, ownerId);
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static com.ecommercegt.api.repository.ProductSpecs.*;
+
+/**
+ * Approved catalog with keyset (cursor) pagination on (createdAt, id), newest first.
+ * Served from the in-memory {@link CatalogSnapshot} (no SQL); with app.catalog.snapshot.enabled=false
+ * every page is a bounded index range scan instead, so page N still costs the same as page 1.
+ */
+@Service
+public class CatalogService {
+
+    public static final int DEFAULT_LIMIT = 24;
+    public static final int MAX_LIMIT = 100;
+
+    public record Filter(Product.Category category, Product.Condition condition,
+                         BigDecimal minPrice, BigDecimal maxPrice, Long ownerId) {}
+
+    public record Page(List<CatalogItem> items, String nextCursor) {}
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final ProductRepository products;
+    private final CatalogSnapshot snapshot;
+    private final boolean useSnapshot;
+
+    public CatalogService(ProductRepository products, CatalogSnapshot snapshot,
+                          @Value("${app.catalog.snapshot.enabled:true}") boolean useSnapshot) {
+        this.products = products;
+        this.snapshot = snapshot;
+        this.useSnapshot = useSnapshot;
+    }
+
+    // No @Transactional: the snapshot path must not even borrow a connection
+    public Page page(Filter f, String cursor, Integer limit) {
+        int size = (limit == null || limit < 1) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        var c = decode(cursor);
+
+        // one extra row tells us whether there is a next page
+        var rows = useSnapshot ? fromSnapshot(f, c, size + 1) : fromDatabase(f, c, size + 1);
+        if (rows.size() <= size) return new Page(rows, null);
+
+        var items = rows.subList(0, size);
+        var last = items.get(size - 1);
+        return new Page(items, encode(last.createdAt(), last.id()));
+    }
+
+    /** One APPROVED product, with its description. */
+    public Optional<CatalogItem> get(Long id) {
+        if (useSnapshot) return snapshot.get(id);
+        return products.findById(id)
+                .filter(p -> p.getStatus() == Product.Status.APPROVED)
+                .map(CatalogItem::of);
+    }
+
+    private List<CatalogItem> fromSnapshot(Filter f, Cursor c, int max) {
+        CatalogItem after = c == null ? null
+                : new CatalogItem(c.id(), null, null, null, null, null, null, null, null, c.createdAt(), null);
+        return snapshot.page(after, it ->
+                (f.category() == null || it.category() == f.category())
+                && (f.condition() == null || it.condition() == f.condition())
+                && (f.minPrice() == null || it.price().compareTo(f.minPrice()) >= 0)
+                && (f.maxPrice() == null || it.price().compareTo(f.maxPrice()) <= 0)
+                && (f.ownerId() == null || f.ownerId().equals(it.ownerId())), max);
+    }
+
+    private List<CatalogItem> fromDatabase(Filter f, Cursor c, int max) {
+        var spec = status(Product.Status.APPROVED)
+                .and(category(f.category()))
+                .and(condition(f.condition()))
+                .and(priceBetween(f.minPrice(), f.maxPrice()))
+                .and(owner(f.ownerId()))
+                .and(after(c != null ? c.createdAt() : null, c != null ? c.id() : null));
+
+        return products.findBy(spec, q -> q.sortBy(NEWEST_FIRST).limit(max).all())
+                .stream().map(CatalogItem::of).toList();
+    }
+
+    // --- opaque cursor: base64url("createdAt|id") ---
+    private record Cursor(Instant createdAt, Long id) {}
+
+    private static String encode(Instant createdAt, Long id) {
+        var raw = createdAt.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Cursor(Instant.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+}
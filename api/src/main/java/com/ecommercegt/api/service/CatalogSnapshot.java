@@ -0,0 +1,119 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.event.StockChangedEvent;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Copy-on-write snapshot of the APPROVED catalog, newest first (createdAt desc, id desc).
+ * Readers grab the current immutable state through a volatile read (no locks, no SQL);
+ * writers build a new state from committed events and publish it atomically.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final Comparator<CatalogItem> NEWEST_FIRST =
+            Comparator.comparing(CatalogItem::createdAt).thenComparing(CatalogItem::id).reversed();
+
+    private record State(List<CatalogItem> newestFirst, Map<Long, CatalogItem> byId, long version) {
+        static final State EMPTY = new State(List.of(), Map.of(), 0);
+    }
+
+    private final ProductRepository products;
+    private volatile State state;
+    private long builds; // guarded by this
+
+    public CatalogSnapshot(ProductRepository products) {
+        this.products = products;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        var items = products.findAllByStatusOrderByCreatedAtDesc(Product.Status.APPROVED)
+                .stream().map(CatalogItem::of).toList();
+        state = build(new ArrayList<>(items));
+    }
+
+    /** Items after the (createdAt, id) cursor that match the filter, at most {@code max}. */
+    public List<CatalogItem> page(CatalogItem after, Predicate<CatalogItem> filter, int max) {
+        var list = current().newestFirst();
+        int from = 0;
+        if (after != null) {
+            int i = Collections.binarySearch(list, after, NEWEST_FIRST);
+            from = i >= 0 ? i + 1 : -i - 1;
+        }
+        var out = new ArrayList<CatalogItem>(Math.min(max, 64));
+        for (int i = from; i < list.size() && out.size() < max; i++) {
+            var it = list.get(i);
+            if (filter.test(it)) out.add(it);
+        }
+        return out;
+    }
+
+    public Optional<CatalogItem> get(Long id) {
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    public List<CatalogItem> all() {
+        return current().newestFirst();
+    }
+
+    /** Grows with every published state (product or stock change); used as the catalog ETag. */
+    public long version() {
+        return current().version();
+    }
+
+    // --- writers (after commit, so the snapshot never shows rolled-back data) ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent e) {
+        var item = e.product();
+        var list = new ArrayList<>(current().newestFirst());
+        list.removeIf(it -> it.id().equals(item.id()));
+        if (item.status() == Product.Status.APPROVED) {
+            int i = Collections.binarySearch(list, item, NEWEST_FIRST);
+            list.add(i >= 0 ? i : -i - 1, item);
+        }
+        state = build(list);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent e) {
+        var cur = current();
+        var list = new ArrayList<>(cur.newestFirst());
+        boolean changed = false;
+        for (var d : e.decrements().entrySet()) {
+            var it = cur.byId().get(d.getKey());
+            if (it == null) continue;
+            int i = Collections.binarySearch(list, it, NEWEST_FIRST);
+            if (i < 0) continue;
+            list.set(i, it.withStock(Math.max(0, it.stock() - d.getValue())));
+            changed = true;
+        }
+        if (changed) state = build(list);
+    }
+
+    private State current() {
+        var s = state;
+        if (s != null) return s;
+        // first read before ApplicationReadyEvent (e.g. tests): load on demand
+        synchronized (this) {
+            if (state == null) reload();
+            return state != null ? state : State.EMPTY;
+        }
+    }
+
+    private State build(List<CatalogItem> newestFirst) {
+        var byId = new HashMap<Long, CatalogItem>(newestFirst.size() * 2);
+        for (var it : newestFirst) byId.put(it.id(), it);
+        return new State(Collections.unmodifiableList(newestFirst), Collections.unmodifiableMap(byId), ++builds);
+    }
+}
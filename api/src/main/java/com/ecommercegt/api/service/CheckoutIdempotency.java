@@ -0,0 +1,147 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.model.CheckoutKey;
+import com.ecommercegt.api.model.Order;
+import com.ecommercegt.api.repository.CheckoutKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a checkout at most once per (buyer, Idempotency-Key) within {@code app.checkout.idempotency.window}.
+ * <ul>
+ *   <li>Front cache: the first request registers a future under its key; duplicates arriving while
+ *   it runs wait on that future instead of racing it, later ones get its result straight away.</li>
+ *   <li>Table: the key row is written in the checkout transaction itself, so after a restart (or on
+ *   another instance) a retry finds the order it already paid for.</li>
+ * </ul>
+ * A replay returns the order id without taking locks or touching stock. A failed checkout leaves
+ * no key behind: the next retry runs again.
+ */
+@Service
+public class CheckoutIdempotency {
+
+    private record Key(Long userId, String key) {}
+
+    private record Attempt(String requestHash, Instant startedAt, CompletableFuture<Long> orderId) {}
+
+    private final CheckoutKeyRepository keys;
+    private final TransactionTemplate tx;
+    private final Duration window;
+    private final ConcurrentHashMap<Key, Attempt> attempts = new ConcurrentHashMap<>();
+
+    public CheckoutIdempotency(CheckoutKeyRepository keys, PlatformTransactionManager txManager,
+                               @Value("${app.checkout.idempotency.window:24h}") Duration window) {
+        this.keys = keys;
+        this.tx = new TransactionTemplate(txManager);
+        this.window = window;
+    }
+
+    /**
+     * Id of the order placed for this key, running {@code checkout} only if there is none yet.
+     * {@code request} identifies what was asked (only its hash is kept); keep card numbers out of it.
+     */
+    public Long orderFor(Long userId, String idemKey, String request, Supplier<Order> checkout) {
+        if (idemKey.isBlank() || idemKey.length() > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida");
+        }
+        var key = new Key(userId, idemKey);
+        var hash = sha256(request);
+        var mine = new Attempt(hash, Instant.now(), new CompletableFuture<>());
+
+        while (true) {
+            var prev = attempts.putIfAbsent(key, mine);
+            if (prev == null) break;
+            if (!expired(prev)) return await(prev, hash);
+            attempts.remove(key, prev); // stale: start over with this request
+        }
+
+        try {
+            var id = keys.findByUserIdAndIdemKey(userId, idemKey)
+                    .filter(k -> k.getCreatedAt().isAfter(Instant.now().minus(window)))
+                    .map(k -> stored(k, hash))
+                    .orElseGet(() -> run(userId, idemKey, hash, checkout));
+            mine.orderId().complete(id);
+            return id;
+        } catch (RuntimeException e) {
+            attempts.remove(key, mine); // nothing was placed: a retry must run again
+            mine.orderId().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.idempotency.sweepMs:3600000}")
+    public void sweep() {
+        attempts.values().removeIf(a -> a.orderId().isDone() && expired(a));
+        tx.executeWithoutResult(s -> keys.deleteCreatedBefore(Instant.now().minus(window)));
+    }
+
+    // --- internals ---
+
+    private Long run(Long userId, String idemKey, String hash, Supplier<Order> checkout) {
+        try {
+            return tx.execute(s -> {
+                // a row left from an expired use of this key would otherwise hit the unique index
+                keys.deleteExpired(userId, idemKey, Instant.now().minus(window));
+                var order = checkout.get();
+                keys.saveAndFlush(CheckoutKey.builder()
+                        .userId(userId).idemKey(idemKey).requestHash(hash).orderId(order.getId())
+                        .build());
+                return order.getId();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another instance committed this key first; its checkout rolled ours back
+            return keys.findByUserIdAndIdemKey(userId, idemKey)
+                    .map(k -> stored(k, hash))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private static Long stored(CheckoutKey k, String hash) {
+        if (!k.getRequestHash().equals(hash)) throw reused();
+        return k.getOrderId();
+    }
+
+    private static Long await(Attempt first, String hash) {
+        if (!first.requestHash().equals(hash)) throw reused();
+        try {
+            return first.orderId().join(); // same outcome as the first request, success or error
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private boolean expired(Attempt a) {
+        return a.startedAt().isBefore(Instant.now().minus(window));
+    }
+
+    private static ResponseStatusException reused() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key ya usada con otra solicitud");
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(h);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
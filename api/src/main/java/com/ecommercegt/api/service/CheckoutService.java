@@ -1,15 +1,18 @@
 package com.ecommercegt.api.service;
 
+import com.ecommercegt.api.event.CartChangedEvent;
+import com.ecommercegt.api.event.OrdersChangedEvent;
+import com.ecommercegt.api.event.StockChangedEvent;
 import com.ecommercegt.api.model.*;
 import com.ecommercegt.api.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -20,24 +23,36 @@ public class CheckoutService {
     private final ProductRepository products;
     private final OrderRepository orders;
     private final PaymentRepository payments;
-    private final OrderItemRepository orderItems;
     private final SavedCardRepository savedCards;
     private final UserRepository users;
+    private final ApplicationEventPublisher events;
+    private final StockReservations reservations;
+    private final HotStock hotStock;
+    private final Optional<WriteBehindCartStore> writeBehind;
+
+    static final int PLATFORM_FEE_PCT = 5;
+
+    /** Platform share of an order: 5% rounded HALF_UP to the cent (the seller gets the rest). */
+    static Money platformFee(Money subtotal) {
+        return subtotal.percent(PLATFORM_FEE_PCT);
+    }
 
     @Transactional
     public Order checkout(Long buyerId, Long savedCardId, String cardHolder, String cardNumber, String brand, boolean saveNewCard) {
-        // 1) Load buyer & cart
-        var buyer = users.findById(buyerId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Buyer not found"));
+        // 1) Load cart (buyer is only needed as a FK reference)
+        var buyer = users.getReferenceById(buyerId);
+        // pending cart edits were flushed by the caller; drop the lines from memory once the order has them
+        writeBehind.ifPresent(store -> store.dropAfterCheckout(buyerId));
 
-        var cart = carts.findByUser(buyer)
+        // cart, lines and their products in one query: nothing below reads a product again
+        var cart = carts.findWithItemsByUserId(buyerId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart not found"));
 
-        var items = cartItems.findByCart(cart);
+        var items = cart.getItems();
         if (items.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
 
         // 2) Validate stock & moderation
-        BigDecimal subtotal = BigDecimal.ZERO;
+        long subtotalCents = 0;
         for (var ci : items) {
             if (ci.getProduct() == null) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart item without product");
@@ -46,24 +61,51 @@ public class CheckoutService {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid quantity for product in cart");
             }
 
-            var p = products.findById(ci.getProduct().getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+            var p = ci.getProduct();
 
             if (p.getStatus() != Product.Status.APPROVED) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product not approved: " + p.getName());
             }
-            if (p.getStock() == null || p.getStock() < ci.getQuantity()) {
+            // other buyers' cart holds count as taken; a hot product's products.stock is only a
+            // delayed copy of its shards, so the take below decides for it
+            if (!p.isHot() && (p.getStock() == null
+                    || p.getStock() - reservations.heldByOthers(p.getId(), buyerId) < ci.getQuantity())) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient stock for: " + p.getName());
             }
 
-            subtotal = subtotal.add(p.getPrice().multiply(BigDecimal.valueOf(ci.getQuantity())));
+            subtotalCents = Math.addExact(subtotalCents, Money.of(p.getPrice()).times(ci.getQuantity()).cents());
         }
+        var subtotal = Money.ofCents(subtotalCents);
 
         // 3) Fees (5% platform / 95% seller)
-        BigDecimal platformFee = subtotal.multiply(new BigDecimal("0.05")).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal sellerAmount = subtotal.subtract(platformFee);
+        var platformFee = platformFee(subtotal);
+        var sellerAmount = subtotal.minus(platformFee);
+
+        // 4) Take the stock with conditional updates: a concurrent checkout that got the last units
+        // makes this one fail and roll back instead of driving the stock negative
+        var decrements = new HashMap<Long, Integer>();
+        var byId = new HashMap<Long, Product>();
+        for (var ci : items) {
+            decrements.merge(ci.getProduct().getId(), ci.getQuantity(), Integer::sum);
+            byId.put(ci.getProduct().getId(), ci.getProduct());
+        }
+        var normal = new HashMap<>(decrements);
+        var hot = new TreeMap<Long, Integer>();
+        for (var p : byId.values()) if (p.isHot()) hot.put(p.getId(), normal.remove(p.getId()));
+
+        var missing = new ArrayList<>(products.decrementStock(normal));
+        // a product switched to hot mode after it was read: its units are in the shards now
+        var fromRows = new HashMap<>(normal);
+        missing.removeIf(id -> hotStock.take(id, 0, normal.get(id)) && fromRows.remove(id) != null);
+        hot.forEach((id, qty) -> {
+            if (!hotStock.take(id, byId.get(id).getStockShards(), qty)) missing.add(id);
+        });
+        if (!missing.isEmpty()) {
+            var p = byId.get(missing.get(0));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient stock for: " + p.getName());
+        }
 
-        // 4) Create order + items
+        // 5) Create order + items
         var order = Order.builder()
                 .buyer(buyer)
                 .status(Order.Status.PLACED) // mark as PLACED immediately
@@ -72,28 +114,26 @@ public class CheckoutService {
                 .sellerAmount(sellerAmount)
                 .build();
 
-        order = orders.save(order);
-
         for (var ci : items) {
-            var p = products.getReferenceById(ci.getProduct().getId());
-            // decrement stock
-            p.setStock(p.getStock() - ci.getQuantity());
-            products.save(p);
-
-            var lineTotal = p.getPrice().multiply(BigDecimal.valueOf(ci.getQuantity()));
-            var oi = OrderItem.builder()
+            var p = ci.getProduct();
+            var unitPrice = Money.of(p.getPrice());
+            order.getItems().add(OrderItem.builder()
                     .order(order)
                     .product(p)
-                    .unitPrice(p.getPrice())
+                    .unitPrice(unitPrice)
                     .quantity(ci.getQuantity())
-                    .lineTotal(lineTotal)
-                    .build();
-            oi = orderItems.save(oi);
-            order.getItems().add(oi);
+                    .lineTotal(unitPrice.times(ci.getQuantity()))
+                    .build());
         }
+        // persisted with its items by cascade; the inserts go out as JDBC batches at flush
         order = orders.save(order);
+        // applied to the catalog snapshot after commit; units from shards go out when HotStock writes them back
+        if (!fromRows.isEmpty()) events.publishEvent(new StockChangedEvent(fromRows));
+        reservations.releaseAfterCommit(buyerId, decrements.keySet()); // the order has the units now
+        events.publishEvent(new CartChangedEvent(buyerId));
+        events.publishEvent(new OrdersChangedEvent(buyerId));
 
-        // 5) Resolve card data (saved card or raw payload) and optionally save new card
+        // 6) Resolve card data (saved card or raw payload) and optionally save new card
         Long usedCardId = null;
         String usedHolder;
         String usedNumber;
@@ -102,7 +142,7 @@ public class CheckoutService {
         if (savedCardId != null) {
             var saved = savedCards.findById(savedCardId)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Saved card not found"));
-            if (!saved.getOwner().getId().equals(buyer.getId())) {
+            if (!saved.getOwner().getId().equals(buyerId)) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Card does not belong to buyer");
             }
             usedCardId = saved.getId();
@@ -129,7 +169,7 @@ public class CheckoutService {
             }
         }
 
-        // 6) Payment record (store full card number per project scope)
+        // 7) Payment record (store full card number per project scope)
         var payment = Payment.builder()
                 .order(order)
                 .cardHolder(usedHolder)
@@ -140,8 +180,8 @@ public class CheckoutService {
                 .build();
         payments.save(payment);
 
-        // 7) Clear cart
-        cartItems.deleteAll(items);
+        // 8) Clear cart
+        cartItems.deleteAllByCartId(cart.getId());
 
         return order;
     }
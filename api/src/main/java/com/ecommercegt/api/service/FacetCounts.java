@@ -0,0 +1,141 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.event.StockChangedEvent;
+import com.ecommercegt.api.model.Product;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Counts of purchasable products (APPROVED with stock > 0) per category, condition and price bucket.
+ * Kept up to date per product from {@link ProductChangedEvent} / {@link StockChangedEvent}, and
+ * published as an immutable {@link Facets} so a read is one volatile load, whatever the catalog size.
+ */
+@Component
+public class FacetCounts {
+
+    // Lower bounds of the price buckets (GTQ); the last one is open-ended
+    private static final BigDecimal[] PRICE_EDGES = {
+            BigDecimal.ZERO, new BigDecimal("100"), new BigDecimal("500"),
+            new BigDecimal("1000"), new BigDecimal("5000")
+    };
+
+    public record PriceBucket(BigDecimal min, BigDecimal max, long count) {}
+
+    public record Facets(Map<Product.Category, Long> category,
+                         Map<Product.Condition, Long> condition,
+                         List<PriceBucket> price) {}
+
+    // What one product currently contributes (null when it counts nowhere)
+    private record Entry(Product.Category category, Product.Condition condition, int bucket, int stock) {}
+
+    private final CatalogSnapshot snapshot;
+
+    // --- guarded by this ---
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final long[] byCategory = new long[Product.Category.values().length];
+    private final long[] byCondition = new long[Product.Condition.values().length];
+    private final long[] byPrice = new long[PRICE_EDGES.length];
+
+    private volatile Facets facets;
+
+    public FacetCounts(CatalogSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.facets = publish();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        entries.clear();
+        Arrays.fill(byCategory, 0);
+        Arrays.fill(byCondition, 0);
+        Arrays.fill(byPrice, 0);
+        for (var item : snapshot.all()) put(item.id(), entryOf(item));
+        facets = publish();
+    }
+
+    public Facets current() {
+        return facets;
+    }
+
+    /** The same counts over a given list of products (e.g. search hits), computed on the spot. */
+    public static Facets of(Collection<CatalogItem> items) {
+        var byCategory = new long[Product.Category.values().length];
+        var byCondition = new long[Product.Condition.values().length];
+        var byPrice = new long[PRICE_EDGES.length];
+        for (var item : items) count(entryOf(item), +1, byCategory, byCondition, byPrice);
+        return publish(byCategory, byCondition, byPrice);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent e) {
+        var item = e.product();
+        put(item.id(), item.status() == Product.Status.APPROVED ? entryOf(item) : null);
+        facets = publish();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent e) {
+        boolean changed = false;
+        for (var d : e.decrements().entrySet()) {
+            var old = entries.get(d.getKey());
+            if (old == null) continue;
+            put(d.getKey(), new Entry(old.category(), old.condition(), old.bucket(),
+                    Math.max(0, old.stock() - d.getValue())));
+            changed = true;
+        }
+        if (changed) facets = publish();
+    }
+
+    // --- callers hold the monitor ---
+
+    private void put(Long id, Entry next) {
+        var prev = next == null ? entries.remove(id) : entries.put(id, next);
+        if (prev != null) count(prev, -1, byCategory, byCondition, byPrice);
+        if (next != null) count(next, +1, byCategory, byCondition, byPrice);
+    }
+
+    private Facets publish() {
+        return publish(byCategory, byCondition, byPrice);
+    }
+
+    private static void count(Entry e, int delta, long[] byCategory, long[] byCondition, long[] byPrice) {
+        // out-of-stock products stay tracked (a restock must find them) but are not counted
+        if (e.stock() <= 0) return;
+        if (e.category() != null) byCategory[e.category().ordinal()] += delta;
+        if (e.condition() != null) byCondition[e.condition().ordinal()] += delta;
+        if (e.bucket() >= 0) byPrice[e.bucket()] += delta;
+    }
+
+    private static Facets publish(long[] byCategory, long[] byCondition, long[] byPrice) {
+        var categories = new EnumMap<Product.Category, Long>(Product.Category.class);
+        for (var c : Product.Category.values()) categories.put(c, byCategory[c.ordinal()]);
+        var conditions = new EnumMap<Product.Condition, Long>(Product.Condition.class);
+        for (var c : Product.Condition.values()) conditions.put(c, byCondition[c.ordinal()]);
+        var prices = new ArrayList<PriceBucket>(PRICE_EDGES.length);
+        for (int i = 0; i < PRICE_EDGES.length; i++) {
+            var max = i + 1 < PRICE_EDGES.length ? PRICE_EDGES[i + 1] : null;
+            prices.add(new PriceBucket(PRICE_EDGES[i], max, byPrice[i]));
+        }
+        return new Facets(Collections.unmodifiableMap(categories), Collections.unmodifiableMap(conditions),
+                List.copyOf(prices));
+    }
+
+    private static Entry entryOf(CatalogItem item) {
+        return new Entry(item.category(), item.condition(), bucketOf(item.price()),
+                item.stock() != null ? item.stock() : 0);
+    }
+
+    private static int bucketOf(BigDecimal price) {
+        if (price == null) return -1;
+        for (int i = PRICE_EDGES.length - 1; i >= 0; i--) {
+            if (price.compareTo(PRICE_EDGES[i]) >= 0) return i;
+        }
+        return -1;
+    }
+}
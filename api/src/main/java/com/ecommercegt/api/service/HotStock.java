@@ -0,0 +1,146 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.StockChangedEvent;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.model.StockShard;
+import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.StockShardRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in "hot product" stock for flash sales. A normal checkout takes units with a conditional
+ * update of the products row, so every buyer of one viral product queues on that row. In hot mode
+ * the stock is split over N rows of product_stock_shards: a checkout takes its units from a random
+ * shard (then its siblings), so up to N checkouts of the product commit in parallel.
+ * <p>
+ * Shards are the truth while the mode is on; products.stock is written back from them every
+ * {@code app.stock.hot.reconcileMs}. Turning the mode off folds the shards back into the row.
+ * Units sold from the shards reach the catalog (StockChangedEvent) when they are written back.
+ */
+@Service
+public class HotStock {
+
+    public static final int MAX_SHARDS = 64;
+
+    public record Status(Long productId, int shards, int stock) {}
+
+    private final ProductRepository products;
+    private final StockShardRepository shards;
+    private final ApplicationEventPublisher events;
+
+    public HotStock(ProductRepository products, StockShardRepository shards, ApplicationEventPublisher events) {
+        this.products = products;
+        this.shards = shards;
+        this.events = events;
+    }
+
+    /** Splits the product's current stock over {@code n} shards (re-splits if already hot). */
+    @Transactional
+    public Status enable(Long productId, int n) {
+        if (n < 2 || n > MAX_SHARDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Número de shards inválido (2-" + MAX_SHARDS + ")");
+        }
+        var p = lock(productId);
+        if (p.isHot()) fold(p);
+
+        int stock = p.getStock() != null ? p.getStock() : 0;
+        var rows = new ArrayList<StockShard>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(StockShard.builder()
+                    .productId(productId).shard(i).stock(stock / n + (i < stock % n ? 1 : 0))
+                    .build());
+        }
+        shards.saveAll(rows);
+        p.setStockShards(n); // the row lock makes normal checkouts wait, then skip this product
+        return new Status(productId, n, stock);
+    }
+
+    /** Back to a single stock column: the shards' total is written to the products row. */
+    @Transactional
+    public Status disable(Long productId) {
+        var p = lock(productId);
+        if (p.isHot()) fold(p);
+        return new Status(productId, 0, p.getStock());
+    }
+
+    /**
+     * Takes {@code qty} units inside the caller's transaction: first from one random shard that has
+     * them all and is not locked by another checkout, otherwise gathered across shards in shard
+     * order (waiting for locks; the fixed order keeps two gathering checkouts from deadlocking).
+     * Returns false when the shards do not hold enough (units taken so far go back with the
+     * caller's rollback) or the product is not hot. {@code shardCount} is the product's stockShards
+     * as the caller read it, 0 if unknown.
+     */
+    @Transactional
+    public boolean take(Long productId, int shardCount, int qty) {
+        if (shardCount > 0) {
+            int start = ThreadLocalRandom.current().nextInt(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                if (shards.takeIfFree(productId, (start + i) % shardCount, qty) == 1) return true;
+            }
+        }
+        // no free shard has it all (or the shard count is unknown): collect it
+        int left = qty;
+        for (var s : shards.findAllByProductIdOrderByShard(productId)) {
+            int part = Math.min(left, s.getStock());
+            if (part > 0 && shards.take(productId, s.getShard(), part) == 1) left -= part;
+            if (left == 0) return true;
+        }
+        return false;
+    }
+
+    /** Units left in the product's shards (a plain read, checkouts may take more meanwhile). */
+    @Transactional(readOnly = true)
+    public int available(Long productId) {
+        int total = 0;
+        for (var s : shards.findAllByProductIdOrderByShard(productId)) total += s.getStock();
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.hot.reconcileMs:5000}")
+    @Transactional
+    public void reconcile() {
+        var taken = new HashMap<Long, Integer>();
+        for (Object[] r : shards.findDrifted()) {
+            long id = ((Number) r[0]).longValue();
+            int seen = ((Number) r[1]).intValue();
+            int total = ((Number) r[2]).intValue();
+            // a copy changed since the read (fold, another instance) is left for the next pass
+            if (shards.writeBack(id, seen, total) == 1) taken.put(id, seen - total);
+        }
+        published(taken);
+    }
+
+    // --- internals ---
+
+    private Product lock(Long productId) {
+        return products.findForUpdate(productId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
+    }
+
+    // Caller holds the product row lock; shard locks wait for in-flight checkouts to finish
+    private void fold(Product p) {
+        int total = 0;
+        for (var s : shards.lockAll(p.getId())) total += s.getStock();
+        shards.deleteAllByProductId(p.getId());
+        int before = p.getStock() != null ? p.getStock() : 0;
+        p.setStock(total);
+        p.setStockShards(null);
+        if (before != total) published(Map.of(p.getId(), before - total));
+    }
+
+    // Units the row copy just lost to the shards, applied to the catalog after commit
+    private void published(Map<Long, Integer> taken) {
+        if (!taken.isEmpty()) events.publishEvent(new StockChangedEvent(taken));
+    }
+}
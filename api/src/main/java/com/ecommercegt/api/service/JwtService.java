@@ -1,5 +1,7 @@
 package com.ecommercegt.api.service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.io.Decoders;
@@ -16,15 +18,24 @@ import java.util.Date;
 @Service
 public class JwtService {
 
+    /** Verified token data; uid and role are the claims embedded by {@link #generate}. */
+    public record VerifiedToken(Long uid, String email, String role, Instant issuedAt, Instant expiresAt) {}
+
     private final SecretKey key;
     private final long expMinutes;
+    // Immutable and thread-safe: built once instead of per call
+    private final JwtParser parser;
+    private final VerifiedTokenCache cache;
 
     public JwtService(@Value("${app.jwt.secret}") String secret,
-                      @Value("${app.jwt.expMinutes}") long expMinutes) {
+                      @Value("${app.jwt.expMinutes}") long expMinutes,
+                      VerifiedTokenCache cache) {
 
         byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
         this.key = Keys.hmacShaKeyFor(bytes);
         this.expMinutes = expMinutes;
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.cache = cache;
     }
 
     public String generate(Long uid, String email, String role) {
@@ -39,16 +50,36 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * Checks signature and expiry once and returns the typed claims.
+     * Repeated tokens are served from the {@link VerifiedTokenCache} until their exp.
+     * Throws a {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        var cached = cache.get(token);
+        if (cached != null) return cached;
+        var verified = parse(token);
+        cache.put(token, verified);
+        return verified;
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Object role = claims.get("role");
+        return new VerifiedToken(
+                claims.get("uid", Long.class),
+                claims.getSubject(),
+                role != null ? role.toString() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
     public String getSubject(String token) {
-        return Jwts.parser().verifyWith(key).build()
-                .parseSignedClaims(token)
-                .getPayload().getSubject();
+        return verify(token).email();
     }
 
     public String getRole(String token) {
-        var claims = Jwts.parser().verifyWith(key).build()
-                .parseSignedClaims(token).getPayload();
-        Object role = claims.get("role");
-        return role != null ? role.toString() : null;
+        return verify(token).role();
     }
 }
\ No newline at end of file
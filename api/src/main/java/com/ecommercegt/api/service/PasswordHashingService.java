@@ -0,0 +1,99 @@
+package com.ecommercegt.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs BCrypt hashing/verification on a small dedicated pool (half the cores by default) with a
+ * bounded queue, so a login burst cannot take every CPU away from catalog and checkout.
+ * A full queue is rejected right away with 429; a job that waits too long fails with 503.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMs;
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder encoder,
+                                  MeterRegistry registry,
+                                  @Value("${app.auth.hashing.threads:0}") int threads,
+                                  @Value("${app.auth.hashing.queueCapacity:64}") int queueCapacity,
+                                  @Value("${app.auth.hashing.timeoutMs:5000}") long timeoutMs) {
+        this.encoder = encoder;
+        this.timeoutMs = timeoutMs;
+        int n = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("pwd-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchTimer = Timer.builder("auth.password.hashing").tag("op", "matches").register(registry);
+        this.encodeTimer = Timer.builder("auth.password.hashing").tag("op", "encode").register(registry);
+        this.rejected = Counter.builder("auth.password.hashing.rejected").register(registry);
+        Gauge.builder("auth.password.hashing.queue", pool, p -> p.getQueue().size()).register(registry);
+        Gauge.builder("auth.password.hashing.active", pool, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    public boolean matches(String raw, String hash) {
+        return run(() -> encoder.matches(raw, hash), matchTimer);
+    }
+
+    public String encode(String raw) {
+        return run(() -> encoder.encode(raw), encodeTimer);
+    }
+
+    /** True when the stored hash was made with a lower cost than the configured one. */
+    public boolean needsRehash(String hash) {
+        return encoder.upgradeEncoding(hash);
+    }
+
+    private <T> T run(Callable<T> job, Timer timer) {
+        Future<T> f;
+        try {
+            // latency includes the time spent waiting in the queue
+            long start = System.nanoTime();
+            f = pool.submit(() -> {
+                try {
+                    return job.call();
+                } finally {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Demasiadas solicitudes, intenta de nuevo");
+        }
+        try {
+            return f.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servicio ocupado, intenta de nuevo");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servicio ocupado, intenta de nuevo");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
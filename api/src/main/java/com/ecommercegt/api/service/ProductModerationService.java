@@ -1,8 +1,11 @@
 package com.ecommercegt.api.service;
 
+import com.ecommercegt.api.event.ProductChangedEvent;
 import com.ecommercegt.api.model.Product;
 import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.ProductSummary;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,10 +18,16 @@ import java.util.List;
 public class ProductModerationService {
 
     private final ProductRepository products;
+    private final ApplicationEventPublisher events;
+
+    public List<ProductSummary> listByStatus(Product.Status status) {
+        return products.findSummariesByStatus(status);
+    }
 
     @Transactional(readOnly = true)
-    public List<Product> listByStatus(Product.Status status) {
-        return products.findAllByStatusOrderByCreatedAtDesc(status);
+    public Product get(Long id) {
+        return products.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no existe"));
     }
 
     @Transactional
@@ -26,7 +35,7 @@ public class ProductModerationService {
         var p = products.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no existe"));
         p.setStatus(Product.Status.APPROVED);
-        return products.save(p);
+        return publish(products.save(p));
     }
 
     @Transactional
@@ -34,7 +43,7 @@ public class ProductModerationService {
         var p = products.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no existe"));
         p.setStatus(Product.Status.REJECTED);
-        return products.save(p);
+        return publish(products.save(p));
     }
 
     @Transactional
@@ -42,6 +51,12 @@ public class ProductModerationService {
         var p = products.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no existe"));
         p.setStatus(Product.Status.IN_REVIEW);
-        return products.save(p);
+        return publish(products.save(p));
+    }
+
+    // Catalog readers (snapshot, search...) pick the change up after commit
+    private Product publish(Product p) {
+        events.publishEvent(new ProductChangedEvent(CatalogItem.of(p)));
+        return p;
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.dto.AuthDtos;
+import com.ecommercegt.api.model.RefreshToken;
+import com.ecommercegt.api.model.User;
+import com.ecommercegt.api.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens. Refreshing costs one indexed lookup (token hash, user fetched in the same
+ * query) plus two small writes, and never touches the password encoder.
+ */
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository tokens;
+    private final JwtService jwtService;
+    private final TokenRevocationService revocations;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository tokens,
+                               JwtService jwtService,
+                               TokenRevocationService revocations,
+                               @Value("${app.jwt.refreshDays:14}") long refreshDays) {
+        this.tokens = tokens;
+        this.jwtService = jwtService;
+        this.revocations = revocations;
+        this.ttl = Duration.ofDays(refreshDays);
+    }
+
+    /** Starts a new token family (login). Returns the raw token for the client. */
+    @Transactional
+    public String issue(User user) {
+        return create(user, UUID.randomUUID().toString());
+    }
+
+    // noRollbackFor: the family revocation on reuse must be committed even though we answer 401
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public AuthDtos.AuthResponse refresh(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) throw invalid();
+        var current = tokens.findByTokenHashWithUser(hash(rawToken)).orElseThrow(this::invalid);
+        Instant now = Instant.now();
+
+        if (current.getRevokedAt() != null || !current.getExpiresAt().isAfter(now)) throw invalid();
+        if (current.getUsedAt() != null || tokens.markUsed(current.getId(), now) == 0) {
+            // Reuse of a rotated token: someone else holds a copy, kill the whole family
+            tokens.revokeFamily(current.getFamilyId(), now);
+            throw invalid();
+        }
+
+        var user = current.getUser();
+        if (!user.isActive() || revocations.isRevoked(user.getId(), current.getCreatedAt())) {
+            tokens.revokeFamily(current.getFamilyId(), now);
+            throw invalid();
+        }
+
+        String next = create(user, current.getFamilyId());
+        String access = jwtService.generate(user.getId(), user.getEmail(), user.getRole().name());
+        return new AuthDtos.AuthResponse(access, next);
+    }
+
+    /** Logout: revokes the family of the given token, if it exists. */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) return;
+        tokens.findByTokenHashWithUser(hash(rawToken))
+                .ifPresent(t -> tokens.revokeFamily(t.getFamilyId(), Instant.now()));
+    }
+
+    /**
+     * Purges expired tokens and tokens revoked more than a day ago. Used but live tokens stay:
+     * they are what detects the reuse of a stolen copy.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.refreshSweepMs:3600000}")
+    @Transactional
+    public void sweep() {
+        var now = Instant.now();
+        tokens.deleteDead(now, now.minus(Duration.ofDays(1)));
+    }
+
+    private String create(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tokens.save(RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(raw))
+                .familyId(familyId)
+                .expiresAt(Instant.now().plus(ttl))
+                .build());
+        return raw;
+    }
+
+    private ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sesión inválida o expirada");
+    }
+
+    private static String hash(String raw) {
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(h);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
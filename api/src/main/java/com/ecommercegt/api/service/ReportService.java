@@ -1,5 +1,6 @@
 package com.ecommercegt.api.service;
 
+import com.ecommercegt.api.model.Money;
 import com.ecommercegt.api.repository.ReportRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -18,9 +19,9 @@ import java.util.stream.Collectors;
 public class ReportService {
 
     // === Inline DTOs (records) ===
-    public record ProductTop(Long productId, String productName, Long unitsSold, BigDecimal revenue) {}
-    public record CustomerSpend(Long customerId, String customerName, Long ordersCount, Long itemsCount, BigDecimal totalSpent) {}
-    public record CustomerSold(Long sellerId, String sellerName, Long itemsSold, BigDecimal revenue) {}
+    public record ProductTop(Long productId, String productName, Long unitsSold, Money revenue) {}
+    public record CustomerSpend(Long customerId, String customerName, Long ordersCount, Long itemsCount, Money totalSpent) {}
+    public record CustomerSold(Long sellerId, String sellerName, Long itemsSold, Money revenue) {}
     public record CustomerOrdersCount(Long customerId, String customerName, Long ordersCount) {}
     public record CustomerActiveListings(Long sellerId, String sellerName, Long activeProducts) {}
 
@@ -36,7 +37,7 @@ public class ReportService {
     public List<ProductTop> topProducts(LocalDate f, LocalDate t, int limit) {
         var rows = repo.topProducts(from(f), to(t));
         var list = rows.stream().map(r -> new ProductTop(
-                asLong(r[0]), asString(r[1]), asLong(r[2]), asBigDecimal(r[3])
+                asLong(r[0]), asString(r[1]), asLong(r[2]), asMoney(r[3])
         )).collect(Collectors.toList());
         return list.size() > limit ? list.subList(0, limit) : list;
     }
@@ -45,7 +46,7 @@ public class ReportService {
     public List<CustomerSpend> topCustomersBySpend(LocalDate f, LocalDate t, int limit) {
         var rows = repo.topCustomersBySpend(from(f), to(t));
         var list = rows.stream().map(r -> new CustomerSpend(
-                asLong(r[0]), asString(r[1]), asLong(r[2]), asLong(r[3]), asBigDecimal(r[4])
+                asLong(r[0]), asString(r[1]), asLong(r[2]), asLong(r[3]), asMoney(r[4])
         )).collect(Collectors.toList());
         return list.size() > limit ? list.subList(0, limit) : list;
     }
@@ -54,7 +55,7 @@ public class ReportService {
     public List<CustomerSold> topSellersByUnits(LocalDate f, LocalDate t, int limit) {
         var rows = repo.topSellersByUnits(from(f), to(t));
         var list = rows.stream().map(r -> new CustomerSold(
-                asLong(r[0]), asString(r[1]), asLong(r[2]), asBigDecimal(r[3])
+                asLong(r[0]), asString(r[1]), asLong(r[2]), asMoney(r[3])
         )).collect(Collectors.toList());
         return list.size() > limit ? list.subList(0, limit) : list;
     }
@@ -89,12 +90,13 @@ public class ReportService {
 
     private static String asString(Object o) { return o == null ? null : o.toString(); }
 
-    private static BigDecimal asBigDecimal(Object o) {
+    // revenue columns are sum(lineTotal): numeric(…,2) from the database, kept as cents from here on
+    private static Money asMoney(Object o) {
         if (o == null) return null;
-        if (o instanceof BigDecimal bd) return bd;
-        if (o instanceof Long l) return BigDecimal.valueOf(l);
-        if (o instanceof Integer i) return BigDecimal.valueOf(i);
-        if (o instanceof java.math.BigInteger bi) return new BigDecimal(bi);
-        return new BigDecimal(o.toString());
+        if (o instanceof Money m) return m;
+        if (o instanceof BigDecimal bd) return Money.of(bd);
+        if (o instanceof Long l) return Money.ofCents(Math.multiplyExact(l, 100L));
+        if (o instanceof Integer i) return Money.ofCents(i * 100L);
+        return Money.of(new BigDecimal(o.toString()));
     }
 }
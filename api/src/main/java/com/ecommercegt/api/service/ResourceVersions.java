@@ -0,0 +1,60 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.CartChangedEvent;
+import com.ecommercegt.api.event.OrdersChangedEvent;
+import com.ecommercegt.api.event.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version stamps behind the ETags of the most polled GETs, so a revalidation
+ * (If-None-Match) is answered without a query. Stamps are bumped after commit: a reader that
+ * computes the tag first and loads afterwards can only pair an old tag with newer data, never
+ * the reverse. The boot id keeps tags from a previous process from matching.
+ */
+@Component
+public class ResourceVersions {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final CatalogSnapshot snapshot;
+
+    // product name/image/price show up in carts and order lines too
+    private final AtomicLong products = new AtomicLong();
+    private final Map<Long, Long> carts = new ConcurrentHashMap<>();
+    private final Map<Long, Long> orders = new ConcurrentHashMap<>();
+
+    public ResourceVersions(CatalogSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String catalog() {
+        return bootId + "-" + snapshot.version();
+    }
+
+    public String cart(Long userId) {
+        return bootId + "-" + userId + "-" + carts.getOrDefault(userId, 0L) + "-" + products.get();
+    }
+
+    public String orders(Long buyerId) {
+        return bootId + "-" + buyerId + "-" + orders.getOrDefault(buyerId, 0L) + "-" + products.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent e) {
+        products.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent e) {
+        carts.merge(e.userId(), 1L, Long::sum);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(OrdersChangedEvent e) {
+        orders.merge(e.buyerId(), 1L, Long::sum);
+    }
+}
@@ -1,7 +1,6 @@
 package com.ecommercegt.api.service;
 
 import com.ecommercegt.api.model.SavedCard;
-import com.ecommercegt.api.model.User;
 import com.ecommercegt.api.repository.SavedCardRepository;
 import com.ecommercegt.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -21,27 +20,21 @@ public class SavedCardService {
 
     @Transactional(readOnly = true)
     public List<SavedCard> listForUser(Long userId) {
-        var owner = users.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        return cards.findAllByOwnerOrderByCreatedAtDesc(owner);
+        return cards.findAllByOwnerIdOrderByCreatedAtDesc(userId);
     }
 
     @Transactional
     public SavedCard create(Long userId, SavedCard payload) {
-        var owner = users.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         payload.setId(null);
-        payload.setOwner(owner);
+        payload.setOwner(users.getReferenceById(userId)); // proxy, only the FK is needed
         return cards.save(payload);
     }
 
     @Transactional
     public void delete(Long userId, Long cardId) {
-        var owner = users.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         var c = cards.findById(cardId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Card not found"));
-        if (!c.getOwner().getId().equals(owner.getId())) {
+        if (!c.getOwner().getId().equals(userId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Card does not belong to user");
         }
         cards.delete(c);
@@ -0,0 +1,151 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.model.Product;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over name + description of APPROVED products, ranked with BM25.
+ * Name terms count twice (titles carry most of the meaning in a listing). Built from the
+ * {@link CatalogSnapshot} at startup and updated per product from {@link ProductChangedEvent}.
+ */
+@Component
+public class SearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 2;
+
+    public record Hit(CatalogItem product, double score) {}
+
+    private final CatalogSnapshot snapshot;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> weighted term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // product id -> its distinct terms (to remove a product without scanning every posting list)
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+    private final Map<Long, Integer> docLength = new HashMap<>();
+    private final Map<Long, CatalogItem> docs = new HashMap<>();
+    private long totalLength;
+
+    public SearchIndex(CatalogSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docTerms.clear();
+            docLength.clear();
+            docs.clear();
+            totalLength = 0;
+            for (var item : snapshot.all()) add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent e) {
+        var item = e.product();
+        lock.writeLock().lock();
+        try {
+            remove(item.id());
+            if (item.status() == Product.Status.APPROVED) add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top {@code limit} products for the query, best first. Null filters are ignored.
+     */
+    public List<Hit> search(String query, Product.Category category, Product.Condition condition, int limit) {
+        var terms = new LinkedHashSet<>(TextAnalyzer.terms(query));
+        if (terms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int n = docs.size();
+            if (n == 0) return List.of();
+            double avgLength = (double) totalLength / n;
+
+            var scores = new HashMap<Long, Double>();
+            for (String term : terms) {
+                var posting = postings.get(term);
+                if (posting == null) continue;
+                double idf = Math.log(1 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (var p : posting.entrySet()) {
+                    var doc = docs.get(p.getKey());
+                    if (category != null && doc.category() != category) continue;
+                    if (condition != null && doc.condition() != condition) continue;
+                    double tf = p.getValue();
+                    double norm = K1 * (1 - B + B * docLength.get(p.getKey()) / avgLength);
+                    scores.merge(p.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            // bounded min-heap: keeps the best `limit` without sorting every match
+            var top = new PriorityQueue<Map.Entry<Long, Double>>(Map.Entry.comparingByValue());
+            for (var s : scores.entrySet()) {
+                top.offer(s);
+                if (top.size() > limit) top.poll();
+            }
+            var hits = new ArrayList<Hit>(top.size());
+            while (!top.isEmpty()) {
+                var s = top.poll();
+                // stock changes are not re-indexed: show the snapshot's current copy
+                var item = snapshot.get(s.getKey()).orElse(docs.get(s.getKey()));
+                hits.add(new Hit(item, s.getValue()));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- callers hold the write lock ---
+
+    private void add(CatalogItem item) {
+        var tf = new HashMap<String, Integer>();
+        int length = 0;
+        for (String t : TextAnalyzer.terms(item.name())) {
+            tf.merge(t, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String t : TextAnalyzer.terms(item.description())) {
+            tf.merge(t, 1, Integer::sum);
+            length++;
+        }
+        for (var e : tf.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(item.id(), e.getValue());
+        }
+        docTerms.put(item.id(), tf.keySet());
+        docLength.put(item.id(), length);
+        docs.put(item.id(), item);
+        totalLength += length;
+    }
+
+    private void remove(Long id) {
+        var terms = docTerms.remove(id);
+        if (terms == null) return;
+        for (String t : terms) {
+            var posting = postings.get(t);
+            if (posting == null) continue;
+            posting.remove(id);
+            if (posting.isEmpty()) postings.remove(t);
+        }
+        totalLength -= docLength.remove(id);
+        docs.remove(id);
+    }
+}
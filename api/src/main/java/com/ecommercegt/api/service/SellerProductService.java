@@ -0,0 +1,68 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A seller's edits to their own products. An edit sends the product back to review; the stock is
+ * replaced only when the seller changed it, so fixing a hot product's text keeps the flash sale
+ * (its shards) running.
+ */
+@Service
+@RequiredArgsConstructor
+public class SellerProductService {
+
+    public record Changes(
+            String name,
+            String description,
+            String imageUrl,
+            BigDecimal price,
+            Integer stock,
+            Product.Condition condition,
+            Product.Category category
+    ) {}
+
+    private final ProductRepository products;
+    private final HotStock hotStock;
+    private final ApplicationEventPublisher events;
+
+    @Transactional
+    public Product update(Long ownerId, Long id, Changes c) {
+        // row lock: no checkout of the row, fold or re-split moves the stock between the check and the write
+        var p = products.findForUpdate(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
+        if (!p.getOwner().getId().equals(ownerId))
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No puedes editar este producto");
+
+        if (restocks(p, c.stock())) {
+            if (p.isHot()) hotStock.disable(id); // folds the shards into p; the seller's stock replaces them
+            p.setStock(c.stock());
+        }
+        p.setName(c.name());
+        p.setDescription(c.description());
+        p.setImageUrl(c.imageUrl());
+        p.setPrice(c.price());
+        p.setCondition(c.condition());
+        p.setCategory(c.category());
+        p.setStatus(Product.Status.IN_REVIEW);
+        events.publishEvent(new ProductChangedEvent(CatalogItem.of(p))); // leaves the catalog until re-approved
+        return p;
+    }
+
+    // A hot product's form may show the delayed products.stock copy or the live shard total:
+    // sending either one back is not a stock change
+    private boolean restocks(Product p, Integer stock) {
+        if (Objects.equals(stock, p.getStock())) return false;
+        return !p.isHot() || stock != hotStock.available(p.getId());
+    }
+}
@@ -0,0 +1,171 @@
+package com.ecommercegt.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Time-limited holds on stock taken when a product goes into a cart, so a sale does not fill
+ * carts that can only fail at checkout. Available stock = stock - active holds of other buyers.
+ * <p>
+ * Holds are counted per product in memory, each product in its own ConcurrentHashMap bin: adding
+ * to a cart never locks the {@code products} row, and buyers of different products never meet.
+ * A buyer holds at most one entry per product, with the absolute quantity of their cart line.
+ * Expired holds are dropped lazily on every access and by {@link #sweep()}; the stock itself only
+ * changes at checkout. Holds are soft state: after a restart they come back as carts are edited.
+ */
+@Component
+public class StockReservations {
+
+    private record Hold(int qty, long expiresAt) {}
+
+    // Holds of one product; only touched inside byProduct.compute* (the bin lock)
+    private static final class Holds {
+        final Map<Long, Hold> byUser = new HashMap<>();
+        int total;
+
+        void purge(long now) {
+            var it = byUser.values().iterator();
+            while (it.hasNext()) {
+                var h = it.next();
+                if (h.expiresAt() <= now) {
+                    total -= h.qty();
+                    it.remove();
+                }
+            }
+        }
+
+        int of(Long userId) {
+            var h = byUser.get(userId);
+            return h != null ? h.qty() : 0;
+        }
+
+        void set(Long userId, int qty, long expiresAt) {
+            total -= of(userId);
+            if (qty > 0) {
+                byUser.put(userId, new Hold(qty, expiresAt));
+                total += qty;
+            } else {
+                byUser.remove(userId);
+            }
+        }
+    }
+
+    private final Duration ttl;
+    private final Map<Long, Holds> byProduct = new ConcurrentHashMap<>();
+
+    public StockReservations(@Value("${app.cart.reservation.ttl:15m}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Sets this buyer's holds to the given line quantities (0 releases), all or nothing: if any
+     * increase does not fit in {@code stockOf(product)} minus the other buyers' holds, the
+     * increases already made are undone and the request fails with 400.
+     */
+    public void hold(Long userId, Map<Long, Integer> quantities, ToIntFunction<Long> stockOf) {
+        if (quantities.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttl.toMillis();
+
+        // increases first, so undoing them on failure can never overshoot
+        var undo = new HashMap<Long, Integer>();
+        var decreases = new HashMap<Long, Integer>();
+        for (var q : quantities.entrySet()) {
+            Long productId = q.getKey();
+            int qty = Math.max(0, q.getValue());
+            boolean[] fits = {true};
+            int[] before = {0};
+            byProduct.compute(productId, (k, holds) -> {
+                if (holds == null) holds = new Holds();
+                holds.purge(now);
+                before[0] = holds.of(userId);
+                if (qty <= before[0]) {
+                    return holds.byUser.isEmpty() ? null : holds;
+                }
+                int others = holds.total - before[0];
+                if (stockOf.applyAsInt(productId) - others < qty) {
+                    fits[0] = false;
+                } else {
+                    holds.set(userId, qty, expiresAt);
+                }
+                return holds.byUser.isEmpty() ? null : holds;
+            });
+            if (!fits[0]) {
+                undo.forEach((pid, prev) -> set(pid, userId, prev, expiresAt));
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock insuficiente");
+            }
+            if (qty > before[0]) undo.put(productId, before[0]);
+            else if (before[0] > 0) decreases.put(productId, qty); // smaller, or the same one renewed
+        }
+        decreases.forEach((pid, qty) -> set(pid, userId, qty, expiresAt));
+    }
+
+    /** Puts this buyer's holds back to the given quantities without a stock check, undoing a {@link #hold} that was not used. */
+    public void restore(Long userId, Map<Long, Integer> quantities) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        quantities.forEach((pid, qty) -> set(pid, userId, qty, expiresAt));
+    }
+
+    /** Units of the product held by buyers other than {@code userId}. */
+    public int heldByOthers(Long productId, Long userId) {
+        long now = System.currentTimeMillis();
+        int[] out = {0};
+        byProduct.computeIfPresent(productId, (k, holds) -> {
+            holds.purge(now);
+            out[0] = holds.total - holds.of(userId);
+            return holds.byUser.isEmpty() ? null : holds;
+        });
+        return out[0];
+    }
+
+    public void release(Long userId, Collection<Long> productIds) {
+        for (var pid : productIds) set(pid, userId, 0, 0);
+    }
+
+    /** Releases once the current transaction commits (right away when there is none). */
+    public void releaseAfterCommit(Long userId, Collection<Long> productIds) {
+        var ids = List.copyOf(productIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(userId, ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(userId, ids);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.reservation.sweepMs:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (var pid : byProduct.keySet()) {
+            byProduct.computeIfPresent(pid, (k, holds) -> {
+                holds.purge(now);
+                return holds.byUser.isEmpty() ? null : holds;
+            });
+        }
+    }
+
+    private void set(Long productId, Long userId, int qty, long expiresAt) {
+        byProduct.compute(productId, (k, holds) -> {
+            if (holds == null) {
+                if (qty <= 0) return null;
+                holds = new Holds();
+            }
+            holds.set(userId, qty, expiresAt);
+            return holds.byUser.isEmpty() ? null : holds;
+        });
+    }
+}
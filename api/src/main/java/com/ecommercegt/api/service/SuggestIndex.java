@@ -0,0 +1,191 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.event.StockChangedEvent;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.OrderItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type-ahead over APPROVED product names: a sorted array of folded keys (one per word start, so
+ * "sam" finds "Teléfono Samsung") searched by binary search, ranked by units sold in the last 30 days.
+ * The arrays are immutable and swapped on change; queries take no locks and never touch the database.
+ */
+@Component
+public class SuggestIndex {
+
+    public record Suggestion(Long id, String name) {}
+
+    private static final Duration SALES_WINDOW = Duration.ofDays(30);
+    // caps the work for one- or two-letter prefixes on a big catalog
+    private static final int MAX_SCAN = 10_000;
+
+    private record Keys(String[] keys, long[] ids) {
+        static final Keys EMPTY = new Keys(new String[0], new long[0]);
+    }
+
+    private final CatalogSnapshot snapshot;
+    private final OrderItemRepository orderItems;
+
+    private final Map<Long, String> names = new HashMap<>(); // guarded by this
+    private volatile Keys keys = Keys.EMPTY;
+    private volatile Map<Long, Long> sales = new ConcurrentHashMap<>();
+
+    public SuggestIndex(CatalogSnapshot snapshot, OrderItemRepository orderItems) {
+        this.snapshot = snapshot;
+        this.orderItems = orderItems;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        names.clear();
+        for (var item : snapshot.all()) names.put(item.id(), item.name());
+        keys = build(names);
+        reloadSales();
+    }
+
+    // Recent sales drift as days pass: recount the window once a day
+    @Scheduled(cron = "${app.catalog.suggest.salesCron:0 0 4 * * *}")
+    public void reloadSales() {
+        var fresh = new ConcurrentHashMap<Long, Long>();
+        for (Object[] r : orderItems.unitsSoldSince(Instant.now().minus(SALES_WINDOW))) {
+            fresh.put((Long) r[0], ((Number) r[1]).longValue());
+        }
+        sales = fresh;
+    }
+
+    // Only the product's own keys move: old ones are dropped and new ones placed by binary search
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent e) {
+        var item = e.product();
+        String now = item.status() == Product.Status.APPROVED ? item.name() : null;
+        String before = now != null ? names.put(item.id(), now) : names.remove(item.id());
+        if (Objects.equals(before, now)) return;
+        keys = update(keys, item.id(), keysOf(before), keysOf(now));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent e) {
+        var s = sales;
+        e.decrements().forEach((id, units) -> s.merge(id, (long) units, Long::sum));
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String p = TextAnalyzer.fold(prefix).trim().replaceAll("\\s+", " ");
+        if (p.isEmpty()) return List.of();
+
+        var k = keys;
+        var s = sales;
+        int i = lowerBound(k.keys(), p);
+        var seen = new HashSet<Long>();
+        var top = new PriorityQueue<long[]>(Comparator.comparingLong(a -> a[1])); // [id, sales], min-heap
+        for (int scanned = 0; i < k.keys().length && scanned < MAX_SCAN && k.keys()[i].startsWith(p); i++, scanned++) {
+            long id = k.ids()[i];
+            if (!seen.add(id)) continue;
+            top.offer(new long[]{id, s.getOrDefault(id, 0L)});
+            if (top.size() > limit) top.poll();
+        }
+
+        var out = new ArrayList<Suggestion>(top.size());
+        while (!top.isEmpty()) {
+            long id = top.poll()[0];
+            snapshot.get(id).ifPresent(it -> out.add(new Suggestion(it.id(), it.name())));
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    private static Keys build(Map<Long, String> names) {
+        var entries = new ArrayList<Map.Entry<String, Long>>();
+        for (var n : names.entrySet()) {
+            for (var key : keysOf(n.getValue())) entries.add(Map.entry(key, n.getKey()));
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+        var ks = new String[entries.size()];
+        var ids = new long[entries.size()];
+        for (int i = 0; i < ks.length; i++) {
+            ks[i] = entries.get(i).getKey();
+            ids[i] = entries.get(i).getValue();
+        }
+        return new Keys(ks, ids);
+    }
+
+    // One key per word start, sorted: "a15", "samsung a15", "telefono samsung a15"
+    private static List<String> keysOf(String name) {
+        if (name == null) return List.of();
+        String folded = TextAnalyzer.fold(name).trim().replaceAll("\\s+", " ");
+        var out = new ArrayList<String>();
+        for (int pos = 0; pos >= 0 && pos < folded.length(); pos = nextWord(folded, pos)) {
+            out.add(folded.substring(pos));
+        }
+        out.sort(null);
+        return out;
+    }
+
+    // Copy of k without the product's `removed` keys and with its `added` ones (sorted): one pass, no re-sort
+    private static Keys update(Keys k, long id, List<String> removed, List<String> added) {
+        var old = k.keys();
+        var drop = new boolean[old.length];
+        int dropped = 0;
+        for (var key : removed) {
+            int i = lowerBound(k, key, id);
+            if (i < old.length && k.ids()[i] == id && old[i].equals(key)) {
+                drop[i] = true;
+                dropped++;
+            }
+        }
+        var at = new int[added.size()];
+        for (int j = 0; j < at.length; j++) at[j] = lowerBound(k, added.get(j), id);
+
+        var ks = new String[old.length - dropped + added.size()];
+        var ids = new long[ks.length];
+        int o = 0, j = 0;
+        for (int i = 0; i <= old.length; i++) {
+            for (; j < at.length && at[j] == i; j++, o++) {
+                ks[o] = added.get(j);
+                ids[o] = id;
+            }
+            if (i < old.length && !drop[i]) {
+                ks[o] = old[i];
+                ids[o++] = k.ids()[i];
+            }
+        }
+        return new Keys(ks, ids);
+    }
+
+    private static int nextWord(String s, int from) {
+        int sp = s.indexOf(' ', from);
+        return sp < 0 ? -1 : sp + 1;
+    }
+
+    // First entry not before (key, id): keys are ordered by key, then product id
+    private static int lowerBound(Keys k, String key, long id) {
+        int lo = 0, hi = k.keys().length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = k.keys()[mid].compareTo(key);
+            if (c < 0 || c == 0 && k.ids()[mid] < id) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int lowerBound(String[] keys, String p) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(p) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommercegt.api.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Text normalisation shared by the product search and suggestion indexes.
+ * Lowercases, folds accents (á→a, ñ→n, ü→u) so "telefono" matches "Teléfono",
+ * splits on anything that is not a letter or digit ("usb-c" → usb, c; "128GB" stays one token),
+ * drops common Spanish stop words and strips a trailing plural "s" from longer words.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "los", "o", "para", "por", "sin", "su", "un", "una", "y"
+    );
+
+    private TextAnalyzer() {}
+
+    /** Lowercase + accent folding, whitespace preserved. */
+    public static String fold(String text) {
+        if (text == null) return "";
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /** Index/query terms, in order (duplicates kept for term frequency). */
+    public static List<String> terms(String text) {
+        var out = new ArrayList<String>();
+        for (String t : SEPARATORS.split(fold(text))) {
+            if (t.isEmpty() || STOP_WORDS.contains(t)) continue;
+            out.add(stem(t));
+        }
+        return out;
+    }
+
+    // "mesas" -> "mesa", "telefonos" -> "telefono"; short words ("gps", "tos") are left alone
+    private static String stem(String t) {
+        if (t.length() > 4 && t.endsWith("s") && Character.isLetter(t.charAt(t.length() - 2))) {
+            return t.substring(0, t.length() - 1);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.model.User;
+import com.ecommercegt.api.repository.UserRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user revocation epochs: "tokens issued before T are invalid".
+ * The filter checks a token's iat against this map (O(1), no DB); the epoch is persisted on
+ * users.tokens_valid_after and the map is rebuilt from the database at startup, before the web
+ * server takes requests (with an empty map every revoked token would pass).
+ */
+@Service
+public class TokenRevocationService implements SmartInitializingSingleton {
+
+    private final UserRepository users;
+    private final VerifiedTokenCache tokenCache;
+    private final Map<Long, Instant> validAfter = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(UserRepository users, VerifiedTokenCache tokenCache) {
+        this.users = users;
+        this.tokenCache = tokenCache;
+    }
+
+    // Runs once all singletons exist, which is before the embedded web server starts
+    @Override
+    public void afterSingletonsInstantiated() {
+        Instant now = nextSecond(Instant.now());
+        validAfter.clear();
+        for (Object[] r : users.findRevocationEpochs()) {
+            Long id = (Long) r[0];
+            Instant epoch = (Instant) r[1];
+            boolean active = (Boolean) r[2];
+            // Suspended users without a stored epoch (suspended before epochs existed): revoke everything so far
+            validAfter.put(id, (epoch == null && !active) ? now : epoch);
+        }
+    }
+
+    /**
+     * Invalidates every token issued to the user up to now. The caller saves the entity; the
+     * in-memory epoch only moves once the caller's transaction commits (right away when there is none).
+     */
+    public void revoke(User user) {
+        // iat has second precision: tokens from the current second are revoked too
+        Instant epoch = nextSecond(Instant.now());
+        user.setTokensValidAfter(epoch);
+        Long id = user.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(id, epoch);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(id, epoch);
+            }
+        });
+    }
+
+    public boolean isRevoked(Long uid, Instant issuedAt) {
+        Instant epoch = validAfter.get(uid);
+        return epoch != null && (issuedAt == null || issuedAt.isBefore(epoch));
+    }
+
+    private void apply(Long id, Instant epoch) {
+        validAfter.merge(id, epoch, (a, b) -> a.isAfter(b) ? a : b);
+        tokenCache.evictUser(id);
+    }
+
+    private static Instant nextSecond(Instant t) {
+        return t.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 public class UserModerationService {
 
     private final UserRepository users;
+    private final TokenRevocationService revocations;
 
     @Transactional(readOnly = true)
     public List<User> listCommonUsers() {
@@ -27,6 +28,7 @@ public class UserModerationService {
         var u = users.findById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no existe"));
         u.setActive(false);
+        revocations.revoke(u);
         users.save(u);
     }
 
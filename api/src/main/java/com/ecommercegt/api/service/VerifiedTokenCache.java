@@ -0,0 +1,90 @@
+package com.ecommercegt.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Size-bounded LRU cache from SHA-256(token) to its verified claims.
+ * An entry is only served until the token's own exp, so a cache hit never extends a token's lifetime.
+ * The raw token is never kept in memory, only its digest. maxSize = 0 disables the cache.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final Map<String, JwtService.VerifiedToken> byDigest;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(@Value("${app.jwt.cache.maxSize:10000}") int maxSize, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        // access-ordered map -> the eldest entry is the least recently used one
+        this.byDigest = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtService.VerifiedToken> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder("auth.token.cache.gets").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("auth.token.cache.gets").tag("result", "miss").register(registry);
+        Gauge.builder("auth.token.cache.size", this, VerifiedTokenCache::size).register(registry);
+    }
+
+    /** Returns the cached claims, or null on a miss or when the token has expired. */
+    public JwtService.VerifiedToken get(String token) {
+        if (maxSize <= 0) return null;
+        String key = digest(token);
+        synchronized (byDigest) {
+            var v = byDigest.get(key);
+            if (v != null && v.expiresAt() != null && v.expiresAt().isAfter(Instant.now())) {
+                hits.increment();
+                return v;
+            }
+            if (v != null) byDigest.remove(key);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String token, JwtService.VerifiedToken verified) {
+        if (maxSize <= 0 || verified.expiresAt() == null) return;
+        String key = digest(token);
+        synchronized (byDigest) {
+            byDigest.put(key, verified);
+        }
+    }
+
+    /** Drops every cached token of the user (suspension, role change). */
+    public void evictUser(Long uid) {
+        synchronized (byDigest) {
+            byDigest.values().removeIf(v -> Objects.equals(v.uid(), uid));
+        }
+    }
+
+    public int size() {
+        synchronized (byDigest) {
+            return byDigest.size();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
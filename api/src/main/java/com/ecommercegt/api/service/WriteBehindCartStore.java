@@ -0,0 +1,507 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.CartChangedEvent;
+import com.ecommercegt.api.model.Cart;
+import com.ecommercegt.api.model.CartItem;
+import com.ecommercegt.api.model.Money;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.CartItemRepository;
+import com.ecommercegt.api.repository.CartRepository;
+import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Optional cart engine (app.cart.writeBehind.enabled=true). Active carts live in memory, one
+ * monitor per cart inside a ConcurrentHashMap (itself lock-striped), so edits of different users
+ * never contend. Every edit is appended to a local {@link CartLog} before it is applied, then the
+ * changed lines are flushed to Postgres in the background, coalesced (ten clicks on "+" become one
+ * UPDATE). Checkout flushes its cart synchronously first, so it reads a consistent view.
+ * <p>
+ * The log is rotated on every background flush; a sealed segment is deleted once every cart that
+ * had unflushed changes when it was sealed has been written up to that point. On startup, before
+ * the web server takes requests, the segments are replayed over the database state and flushed.
+ * <p>
+ * In this mode a line's id is its product id: lines may not have a database id yet.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.writeBehind.enabled", havingValue = "true")
+public class WriteBehindCartStore implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private record Line(int qty, long unitCents, long version) {}
+
+    // A sealed log segment and, for each cart dirty when it was sealed, the version it must reach
+    private record Sealed(long segment, Map<CartState, Long> pending) {}
+
+    // Fields guarded by the state's monitor; flushes of one cart are serialized on `flushing`
+    private static final class CartState {
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        final Map<Long, Long> dirty = new HashMap<>(); // product id -> version of its last change
+        final Object flushing = new Object();
+        long clearedAt;                                // version of an unflushed clear, 0 = none
+        long version;
+        long flushedUpTo;                              // every change up to this version is in the database
+        boolean dead;                                  // evicted: callers must look the cart up again
+        Long cartId;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        boolean isDirty() {
+            return clearedAt != 0 || !dirty.isEmpty();
+        }
+    }
+
+    private final CartRepository carts;
+    private final CartItemRepository items;
+    private final ProductRepository products;
+    private final UserRepository users;
+    private final CatalogSnapshot snapshot;
+    private final StockReservations reservations;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final CartLog cartLog;
+    private final Duration idleEviction;
+
+    private final ConcurrentHashMap<Long, CartState> states = new ConcurrentHashMap<>();
+    // edits hold the read side (log append + apply); rotating the log needs no edit in flight
+    private final ReentrantReadWriteLock checkpoint = new ReentrantReadWriteLock();
+    private final List<Sealed> sealed = new ArrayList<>(); // guarded by itself
+
+    public WriteBehindCartStore(CartRepository carts, CartItemRepository items, ProductRepository products,
+                                UserRepository users, CatalogSnapshot snapshot, StockReservations reservations,
+                                ApplicationEventPublisher events,
+                                PlatformTransactionManager txManager,
+                                @Value("${app.cart.writeBehind.logFile:./data/cart-wal.log}") String logFile,
+                                @Value("${app.cart.writeBehind.fsync:true}") boolean fsync,
+                                @Value("${app.cart.writeBehind.idleEviction:30m}") Duration idleEviction) {
+        this.carts = carts;
+        this.items = items;
+        this.products = products;
+        this.users = users;
+        this.snapshot = snapshot;
+        this.reservations = reservations;
+        this.events = events;
+        this.tx = new TransactionTemplate(txManager);
+        this.cartLog = new CartLog(Path.of(logFile), fsync);
+        this.idleEviction = idleEviction;
+    }
+
+    // --- reads / writes (called by CartService) ---
+
+    public Cart view(Long userId) {
+        return withState(userId, st -> {
+            st.lastAccess = System.currentTimeMillis();
+            return toCart(st);
+        });
+    }
+
+    /** Applies the steps all-or-nothing: they are validated on a copy, held, logged, then applied. */
+    public Cart apply(Long userId, List<CartService.CartOp> ops) {
+        Cart result;
+        checkpoint.readLock().lock();
+        try {
+            result = withState(userId, st -> {
+                var next = new LinkedHashMap<>(st.lines);
+                var records = plan(userId, next, ops);
+                var changed = changedQuantities(st.lines, next);
+                reservations.hold(userId, changed, pid -> snapshot.get(pid).map(CatalogItem::stock).orElse(0));
+                try {
+                    for (var r : records) cartLog.append(r);
+                } catch (RuntimeException e) {
+                    // nothing was applied: the holds go back to the lines as they are
+                    var previous = new HashMap<Long, Integer>();
+                    for (var pid : changed.keySet()) {
+                        var line = st.lines.get(pid);
+                        previous.put(pid, line != null ? line.qty() : 0);
+                    }
+                    reservations.restore(userId, previous);
+                    throw e;
+                }
+                for (var r : records) applyRecord(st, r);
+                st.lastAccess = System.currentTimeMillis();
+                return toCart(st);
+            });
+        } finally {
+            checkpoint.readLock().unlock();
+        }
+        events.publishEvent(new CartChangedEvent(userId));
+        return result;
+    }
+
+    /**
+     * Writes this user's pending changes now, before checkout reads the cart. Called before the
+     * checkout transaction opens, so a checkout never needs two pool connections at once.
+     * Fails with 503 if the database cannot take the write.
+     */
+    public void flushForCheckout(Long userId) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+                "Cart must be flushed before the checkout transaction opens");
+        var st = states.get(userId);
+        if (st == null) return;
+        try {
+            flush(userId, st);
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No se pudo guardar el carrito, intenta de nuevo");
+        }
+    }
+
+    /**
+     * Called inside the checkout transaction, which deletes the cart's lines: once it commits, the
+     * lines the database had (the clean ones) are dropped from memory too; edits not flushed yet
+     * were made after checkout read the cart and stay pending.
+     */
+    public void dropAfterCheckout(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                var st = states.get(userId);
+                if (st == null) return;
+                synchronized (st) {
+                    st.lines.keySet().removeIf(pid -> !st.dirty.containsKey(pid));
+                }
+            }
+        });
+    }
+
+    /** Forgets the in-memory copy of these carts (rows changed behind the store's back); unflushed ones are kept. */
+    public void evict(Collection<Long> userIds) {
+        for (var userId : userIds) {
+            var st = states.get(userId);
+            if (st == null) continue;
+            synchronized (st) {
+                if (!st.isDirty()) kill(userId, st);
+            }
+        }
+    }
+
+    // --- background flush, recovery, shutdown ---
+
+    @Scheduled(fixedDelayString = "${app.cart.writeBehind.flushMs:2000}")
+    public void flushAll() {
+        long idleBefore = System.currentTimeMillis() - idleEviction.toMillis();
+        for (var e : states.entrySet()) {
+            try {
+                flush(e.getKey(), e.getValue());
+            } catch (RuntimeException ex) {
+                log.warn("Cart {} flush failed, will retry: {}", e.getKey(), ex.toString());
+                continue;
+            }
+            var st = e.getValue();
+            synchronized (st) {
+                if (!st.isDirty() && st.lastAccess < idleBefore) kill(e.getKey(), st);
+            }
+        }
+        checkpoint();
+    }
+
+    /** Startup, before the web server accepts requests: nothing can edit a cart while it is replayed. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        recover();
+    }
+
+    void recover() {
+        var segments = cartLog.recovered();
+        if (segments.isEmpty()) return;
+        int n = 0;
+        for (long seg : segments) {
+            for (var r : cartLog.read(seg)) {
+                withState(r.userId(), st -> {
+                    applyRecord(st, r);
+                    return null;
+                });
+                n++;
+            }
+        }
+        var pending = dirtyVersions();
+        synchronized (sealed) {
+            for (long seg : segments) sealed.add(new Sealed(seg, pending));
+        }
+        log.info("Replayed {} cart log records from {} segments", n, segments.size());
+        flushAll();
+    }
+
+    @PreDestroy
+    void shutdown() throws Exception {
+        flushAll();
+        cartLog.close();
+    }
+
+    // --- internals ---
+
+    // Runs `action` under the monitor of the user's live state, looking it up again if it was evicted meanwhile
+    private <T> T withState(Long userId, Function<CartState, T> action) {
+        while (true) {
+            var st = state(userId);
+            synchronized (st) {
+                if (!st.dead) return action.apply(st);
+            }
+        }
+    }
+
+    // caller holds the state's monitor
+    private void kill(Long userId, CartState st) {
+        st.dead = true;
+        states.remove(userId, st);
+    }
+
+    private CartState state(Long userId) {
+        var st = states.get(userId);
+        if (st != null) return st;
+        // load outside the map so a slow query does not block other users' bins
+        var loaded = new CartState();
+        carts.findWithItemsByUserId(userId).ifPresent(c -> {
+            loaded.cartId = c.getId();
+            for (var ci : c.getItems()) {
+                loaded.lines.put(ci.getProduct().getId(),
+                        new Line(ci.getQuantity(), ci.getUnitPrice() != null ? ci.getUnitPrice().cents() : 0, 0));
+            }
+        });
+        var prev = states.putIfAbsent(userId, loaded);
+        return prev != null ? prev : loaded;
+    }
+
+    // Validates the steps against a copy of the lines; returns the log records to write
+    private List<CartLog.Record> plan(Long userId, Map<Long, Line> lines, List<CartService.CartOp> ops) {
+        var records = new ArrayList<CartLog.Record>();
+        for (var op : ops) {
+            if (op.type() == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Operación inválida");
+            switch (op.type()) {
+                case ADD -> {
+                    var item = snapshot.get(op.productId()).orElse(null);
+                    if (item == null) {
+                        boolean exists = op.productId() != null && products.existsById(op.productId());
+                        throw exists
+                                ? new ResponseStatusException(HttpStatus.BAD_REQUEST, "Producto no disponible")
+                                : new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado");
+                    }
+                    int add = (op.qty() == null || op.qty() < 1) ? 1 : op.qty();
+                    var current = lines.get(item.id());
+                    int qty = (current != null ? current.qty() : 0) + add;
+                    records.add(set(userId, lines, item, qty));
+                }
+                case SET -> {
+                    requireLine(lines, op.itemId());
+                    if (op.qty() == null || op.qty() < 1) {
+                        lines.remove(op.itemId());
+                        records.add(new CartLog.Remove(userId, op.itemId()));
+                    } else {
+                        var item = snapshot.get(op.itemId())
+                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Producto no disponible"));
+                        records.add(set(userId, lines, item, op.qty()));
+                    }
+                }
+                case REMOVE -> {
+                    requireLine(lines, op.itemId());
+                    lines.remove(op.itemId());
+                    records.add(new CartLog.Remove(userId, op.itemId()));
+                }
+                case CLEAR -> {
+                    lines.clear();
+                    records.add(new CartLog.Clear(userId));
+                }
+            }
+        }
+        return records;
+    }
+
+    // New quantity of every product whose line changed (0 = gone)
+    private static Map<Long, Integer> changedQuantities(Map<Long, Line> before, Map<Long, Line> after) {
+        var out = new HashMap<Long, Integer>();
+        for (var e : after.entrySet()) {
+            var prev = before.get(e.getKey());
+            if (prev == null || prev.qty() != e.getValue().qty()) out.put(e.getKey(), e.getValue().qty());
+        }
+        for (var pid : before.keySet()) {
+            if (!after.containsKey(pid)) out.put(pid, 0);
+        }
+        return out;
+    }
+
+    private static CartLog.Record set(Long userId, Map<Long, Line> lines, CatalogItem item, int qty) {
+        if (item.stock() == null || item.stock() < qty) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock insuficiente");
+        }
+        long cents = Money.of(item.price()).cents(); // refresh price snapshot
+        lines.put(item.id(), new Line(qty, cents, 0));
+        return new CartLog.Set(userId, item.id(), qty, cents);
+    }
+
+    private static void requireLine(Map<Long, Line> lines, Long productId) {
+        if (productId == null || !lines.containsKey(productId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ítem no existe");
+        }
+    }
+
+    // caller holds the cart monitor
+    private static void applyRecord(CartState st, CartLog.Record r) {
+        long v = ++st.version;
+        switch (r) {
+            case CartLog.Set s -> {
+                st.lines.put(s.productId(), new Line(s.qty(), s.unitCents(), v));
+                st.dirty.put(s.productId(), v);
+            }
+            case CartLog.Remove rm -> {
+                st.lines.remove(rm.productId());
+                st.dirty.put(rm.productId(), v);
+            }
+            case CartLog.Clear c -> {
+                st.lines.clear();
+                st.dirty.clear();
+                st.clearedAt = v;
+            }
+        }
+    }
+
+    /**
+     * Writes the cart's pending changes in one transaction. Flushes of one cart are serialized, so an
+     * older write can never land after a newer one.
+     */
+    private void flush(Long userId, CartState st) {
+        synchronized (st.flushing) {
+            Map<Long, Line> changes = new HashMap<>(); // null value = delete the line
+            boolean cleared;
+            long upTo;
+            synchronized (st) {
+                upTo = st.version;
+                if (!st.isDirty()) {
+                    st.flushedUpTo = upTo;
+                    return;
+                }
+                for (var pid : st.dirty.keySet()) changes.put(pid, st.lines.get(pid));
+                cleared = st.clearedAt != 0;
+            }
+
+            Long writtenCartId = tx.execute(s -> {
+                Long id = cartIdFor(userId); // looked up each time: compaction may drop an empty cart
+                if (cleared) items.deleteAllByCartId(id);
+                for (var c : changes.entrySet()) {
+                    var line = c.getValue();
+                    if (line == null) items.deleteLine(id, c.getKey());
+                    else items.setLine(id, c.getKey(), line.qty(), Money.ofCents(line.unitCents()).toBigDecimal());
+                }
+                return id;
+            });
+
+            synchronized (st) {
+                st.cartId = writtenCartId;
+                st.dirty.values().removeIf(v -> v <= upTo);
+                if (st.clearedAt <= upTo) st.clearedAt = 0;
+                st.flushedUpTo = upTo;
+            }
+        }
+    }
+
+    private Long cartIdFor(Long userId) {
+        return carts.findByUserId(userId).map(Cart::getId).orElseGet(() -> {
+            var c = new Cart();
+            c.setUser(users.getReferenceById(userId));
+            return carts.save(c).getId();
+        });
+    }
+
+    // Seals the active log segment, then deletes every sealed segment whose changes are all in the database
+    private void checkpoint() {
+        checkpoint.writeLock().lock();
+        try {
+            long seg = cartLog.roll();
+            if (seg >= 0) {
+                var pending = dirtyVersions(); // no edit in flight: every record in `seg` is applied
+                synchronized (sealed) {
+                    sealed.add(new Sealed(seg, pending));
+                }
+            }
+        } finally {
+            checkpoint.writeLock().unlock();
+        }
+        synchronized (sealed) {
+            var it = sealed.iterator();
+            while (it.hasNext()) {
+                var s = it.next();
+                if (!written(s)) continue;
+                cartLog.delete(s.segment());
+                it.remove();
+            }
+        }
+    }
+
+    private Map<CartState, Long> dirtyVersions() {
+        var out = new HashMap<CartState, Long>();
+        for (var st : states.values()) {
+            synchronized (st) {
+                if (st.isDirty()) out.put(st, st.version);
+            }
+        }
+        return out;
+    }
+
+    private static boolean written(Sealed s) {
+        for (var p : s.pending().entrySet()) {
+            var st = p.getKey();
+            synchronized (st) {
+                if (st.flushedUpTo < p.getValue()) return false;
+            }
+        }
+        return true;
+    }
+
+    // Detached Cart for the controller's DTO mapping; product data comes from the catalog snapshot
+    private Cart toCart(CartState st) {
+        var cart = new Cart();
+        cart.setId(st.cartId);
+        for (var e : st.lines.entrySet()) {
+            var ci = new CartItem();
+            ci.setId(e.getKey());
+            ci.setCart(cart);
+            ci.setProduct(productView(e.getKey()));
+            ci.setQuantity(e.getValue().qty());
+            ci.setUnitPrice(Money.ofCents(e.getValue().unitCents()));
+            cart.getItems().add(ci);
+        }
+        return cart;
+    }
+
+    private Product productView(Long productId) {
+        var item = snapshot.get(productId).orElse(null);
+        if (item == null) {
+            // no longer approved: rare, read it from the database
+            return products.findById(productId).orElseGet(() -> {
+                var p = new Product();
+                p.setId(productId);
+                return p;
+            });
+        }
+        var p = new Product();
+        p.setId(item.id());
+        p.setName(item.name());
+        p.setImageUrl(item.imageUrl());
+        p.setPrice(item.price());
+        p.setStock(item.stock());
+        p.setStatus(item.status());
+        return p;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommercegt.api;
+
+import com.ecommercegt.api.model.*;
+import jakarta.persistence.EntityManager;
+
+import java.math.BigDecimal;
+
+/**
+ * Rows shared by the JPA tests: a buyer whose cart holds products of one seller.
+ */
+public final class CartFixtures {
+
+    private CartFixtures() {}
+
+    /**
+     * Persists a buyer, a seller (emails tagged with {@code tag} so several pairs can coexist) and a
+     * cart with one unit of each of {@code lines} APPROVED products ("Producto 0", ..., 5 in stock),
+     * then flushes and clears the persistence context. Returns the buyer.
+     */
+    public static User buyerWithCart(EntityManager em, String tag, int lines) {
+        var buyer = new User("Buyer", "buyer" + tag + "@ecommercegt.com", "x", Role.COMMON);
+        var seller = new User("Seller", "seller" + tag + "@ecommercegt.com", "x", Role.COMMON);
+        em.persist(buyer);
+        em.persist(seller);
+
+        var cart = new Cart();
+        cart.setUser(buyer);
+        em.persist(cart);
+        for (int i = 0; i < lines; i++) {
+            var p = new Product();
+            p.setOwner(seller);
+            p.setName("Producto " + i);
+            p.setDescription("Descripción " + i);
+            p.setImageUrl("https://img/" + i);
+            p.setPrice(new BigDecimal("10.00"));
+            p.setStock(5);
+            p.setStatus(Product.Status.APPROVED);
+            em.persist(p);
+
+            var ci = new CartItem();
+            ci.setCart(cart);
+            ci.setProduct(p);
+            ci.setQuantity(1);
+            em.persist(ci);
+        }
+        em.flush();
+        em.clear();
+        return buyer;
+    }
+}
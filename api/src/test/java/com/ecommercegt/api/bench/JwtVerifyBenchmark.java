@@ -0,0 +1,65 @@
+package com.ecommercegt.api.bench;
+
+import com.ecommercegt.api.service.JwtService;
+import com.ecommercegt.api.service.VerifiedTokenCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT cost: the old filter path (new parser for getSubject + new parser for getRole)
+ * against a single {@link JwtService#verify} on the pre-built parser, without and with the token cache.
+ * Run main() from the IDE, or add "-prof gc" to the options to compare allocation per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "Cambia_Esta_Clave_Secreta_muy_larga_1234567890_abcdef";
+
+    private JwtService jwt;
+    private JwtService cachedJwt;
+    private SecretKey key;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwt = new JwtService(SECRET, 60, new VerifiedTokenCache(0, new SimpleMeterRegistry()));
+        cachedJwt = new JwtService(SECRET, 60, new VerifiedTokenCache(10_000, new SimpleMeterRegistry()));
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = jwt.generate(42L, "bench@ecommercegt.com", "COMMON");
+    }
+
+    @Benchmark
+    public void legacyParserPerCall(Blackhole bh) {
+        bh.consume(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject());
+        bh.consume(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().get("role"));
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken verifyOnce() {
+        return jwt.verify(token);
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken verifyCached() {
+        return cachedJwt.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerifyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommercegt.api.bench;
+
+import com.ecommercegt.api.model.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout money math for a 20-line cart: line totals, subtotal and 5% HALF_UP fee,
+ * BigDecimal (the old code) against long cents. Add "-prof gc" to compare allocation per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final BigDecimal FEE_RATE = new BigDecimal("0.05");
+    private static final int LINES = 20;
+
+    private BigDecimal[] prices;
+    private Money[] moneyPrices;
+    private int[] quantities;
+
+    @Setup
+    public void setup() {
+        var rnd = new Random(42);
+        prices = new BigDecimal[LINES];
+        moneyPrices = new Money[LINES];
+        quantities = new int[LINES];
+        for (int i = 0; i < LINES; i++) {
+            prices[i] = BigDecimal.valueOf(100 + rnd.nextInt(500_000), 2);
+            moneyPrices[i] = Money.of(prices[i]);
+            quantities[i] = 1 + rnd.nextInt(5);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            subtotal = subtotal.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        var fee = subtotal.multiply(FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+        return subtotal.subtract(fee);
+    }
+
+    @Benchmark
+    public long longCents() {
+        long subtotal = 0;
+        for (int i = 0; i < LINES; i++) {
+            subtotal = Math.addExact(subtotal, moneyPrices[i].times(quantities[i]).cents());
+        }
+        var total = Money.ofCents(subtotal);
+        return total.minus(total.percent(5)).cents();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoneyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommercegt.api.controller;
+
+import com.ecommercegt.api.config.AuthUser;
+import com.ecommercegt.api.config.CurrentUserArgumentResolver;
+import com.ecommercegt.api.model.Cart;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.model.Role;
+import com.ecommercegt.api.repository.CartItemRepository;
+import com.ecommercegt.api.repository.CartRepository;
+import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.UserRepository;
+import com.ecommercegt.api.service.CartService;
+import com.ecommercegt.api.service.CatalogSnapshot;
+import com.ecommercegt.api.service.ResourceVersions;
+import com.ecommercegt.api.service.StockReservations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The authenticated user comes from the token: cart requests must not run any users query.
+ */
+class CartControllerTest {
+
+    private final CartRepository carts = mock(CartRepository.class);
+    private final CartItemRepository items = mock(CartItemRepository.class);
+    private final ProductRepository products = mock(ProductRepository.class);
+    private final UserRepository users = mock(UserRepository.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        var controller = new CartController(new CartService(carts, items, products, users, e -> {},
+                new StockReservations(Duration.ofMinutes(15)), Optional.empty()),
+                new ResourceVersions(new CatalogSnapshot(products)));
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver())
+                .build();
+
+        var me = new AuthUser(7L, "buyer@ecommercegt.com", Role.COMMON);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                me, null, List.of(new SimpleGrantedAuthority("ROLE_COMMON"))));
+
+        when(carts.findWithItemsByUserId(7L)).thenReturn(Optional.of(new Cart()));
+        when(carts.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getCartRunsNoUserLookup() throws Exception {
+        mvc.perform(get("/api/cart")).andExpect(status().isOk());
+
+        verify(carts, times(1)).findWithItemsByUserId(7L);
+        verifyNoInteractions(users);
+    }
+
+    @Test
+    void unchangedCartRevalidatesWithoutQuerying() throws Exception {
+        var etag = mvc.perform(get("/api/cart"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/api/cart").header("If-None-Match", etag)).andExpect(status().isNotModified());
+
+        verify(carts, times(1)).findWithItemsByUserId(7L);
+    }
+
+    @Test
+    void addItemRunsNoUserLookup() throws Exception {
+        when(items.upsertLine(7L, 3L, 2)).thenReturn(1);
+
+        mvc.perform(post("/api/cart/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\":3,\"qty\":2}"))
+                .andExpect(status().isOk());
+
+        // one upsert, then the response read; no product or line lookups on the happy path
+        verify(items, times(1)).upsertLine(7L, 3L, 2);
+        verify(carts, times(1)).findWithItemsByUserId(7L);
+        verifyNoInteractions(users, products);
+    }
+
+    @Test
+    void addItemWithoutStockIsRejected() throws Exception {
+        var p = new Product();
+        p.setId(3L);
+        p.setStock(1);
+        p.setStatus(Product.Status.APPROVED);
+        when(carts.existsByUserId(7L)).thenReturn(true);
+        when(products.findById(3L)).thenReturn(Optional.of(p));
+
+        mvc.perform(post("/api/cart/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\":3,\"qty\":2}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void batchAddsUseTheUpsert() throws Exception {
+        when(items.upsertLine(7L, 3L, 2)).thenReturn(1);
+        when(items.upsertLine(7L, 3L, 1)).thenReturn(1);
+
+        mvc.perform(post("/api/cart/ops")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ops\":[{\"type\":\"ADD\",\"productId\":3,\"qty\":2},"
+                                + "{\"type\":\"ADD\",\"productId\":3,\"qty\":1}]}"))
+                .andExpect(status().isOk());
+
+        // merged by the database, never inserted from a loaded line: no duplicate-line race
+        verify(items).upsertLine(7L, 3L, 2);
+        verify(items).upsertLine(7L, 3L, 1);
+        verify(items, never()).save(any());
+        verifyNoInteractions(products);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommercegt.api.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property checks: on random carts, the long-cents results must equal the BigDecimal code they
+ * replace (line totals, subtotal, 5% HALF_UP fee, seller share), digit for digit.
+ */
+class MoneyTest {
+
+    private static final int SAMPLES = 100_000;
+    private static final BigDecimal FEE_RATE = new BigDecimal("0.05");
+
+    @Test
+    void matchesBigDecimalCheckoutMath() {
+        var rnd = new Random(20251017);
+        for (int n = 0; n < SAMPLES; n++) {
+            int lines = 1 + rnd.nextInt(8);
+            BigDecimal expected = BigDecimal.ZERO;
+            Money actual = Money.ZERO;
+            for (int i = 0; i < lines; i++) {
+                var price = randomPrice(rnd);
+                int qty = 1 + rnd.nextInt(20);
+                var line = price.multiply(BigDecimal.valueOf(qty));
+                var moneyLine = Money.of(price).times(qty);
+                assertEquals(0, line.compareTo(moneyLine.toBigDecimal()), () -> "line " + price + " x " + qty);
+                expected = expected.add(line);
+                actual = actual.plus(moneyLine);
+            }
+            assertEquals(0, expected.compareTo(actual.toBigDecimal()), "subtotal");
+
+            var fee = expected.multiply(FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+            var moneyFee = actual.percent(5);
+            final var subtotal = expected;
+            assertEquals(fee, moneyFee.toBigDecimal(), () -> "fee of " + subtotal);
+            assertEquals(expected.subtract(fee).setScale(2), actual.minus(moneyFee).toBigDecimal(), "seller share");
+        }
+    }
+
+    @Test
+    void percentRoundsHalfUpLikeBigDecimal() {
+        // every residue mod 100, both signs, including the exact .5 ties
+        for (long cents = -10_000; cents <= 10_000; cents++) {
+            var bd = BigDecimal.valueOf(cents, 2).multiply(FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(bd, Money.ofCents(cents).percent(5).toBigDecimal(), "cents=" + cents);
+        }
+    }
+
+    @Test
+    void roundTripsThroughTheColumnType() {
+        var converter = new MoneyConverter();
+        var rnd = new Random(7);
+        for (int n = 0; n < SAMPLES; n++) {
+            var price = randomPrice(rnd);
+            var money = converter.convertToEntityAttribute(price);
+            assertEquals(price, converter.convertToDatabaseColumn(money));
+        }
+        assertNull(converter.convertToEntityAttribute(null));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        var huge = Money.ofCents(Long.MAX_VALUE / 2 + 1);
+        assertThrows(ArithmeticException.class, () -> huge.plus(huge));
+        assertThrows(ArithmeticException.class, () -> huge.times(3));
+    }
+
+    // numeric(12,2): up to 9,999,999,999.99, mostly everyday prices
+    private static BigDecimal randomPrice(Random rnd) {
+        long cents = rnd.nextInt(10) == 0
+                ? (long) (rnd.nextDouble() * 999_999_999_999L)
+                : rnd.nextInt(500_000);
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
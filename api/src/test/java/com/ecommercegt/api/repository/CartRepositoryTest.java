@@ -0,0 +1,113 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.CartFixtures;
+import com.ecommercegt.api.event.CartChangedEvent;
+import com.ecommercegt.api.model.*;
+import com.ecommercegt.api.service.CartCompactionJob;
+import com.ecommercegt.api.service.CartService;
+import com.ecommercegt.api.service.StockReservations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Locks in the cart read path: cart, lines and products must come back in a single statement.
+ * Also runs CartCompactionJob against real rows.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:carts;MODE=PostgreSQL;INIT=CREATE SCHEMA IF NOT EXISTS ecommerce",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CartService.class, StockReservations.class})
+@RecordApplicationEvents
+class CartRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired CartService cartService;
+    @Autowired CartRepository carts;
+    @Autowired CartItemRepository items;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired ApplicationEventPublisher publisher;
+    @Autowired ApplicationEvents events;
+
+    private Long userId;
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        var buyer = CartFixtures.buyerWithCart(em, "", 3);
+        userId = buyer.getId();
+        stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void cartReadIsOneStatement() {
+        var cart = cartService.getOrCreate(userId);
+
+        // everything the cart response renders
+        assertEquals(3, cart.getItems().size());
+        cart.getItems().forEach(ci -> {
+            ci.getProduct().getName();
+            ci.getProduct().getImageUrl();
+            ci.getProduct().getPrice();
+        });
+        cart.getSubtotal();
+
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void compactionDropsAbandonedLinesThenEmptyCarts() {
+        em.createQuery("update Product p set p.status = :s where p.name = 'Producto 0'")
+                .setParameter("s", Product.Status.REJECTED).executeUpdate();
+
+        var registry = new SimpleMeterRegistry();
+        compaction(registry, Duration.ofDays(30)).run();
+        assertEquals(1, deleted(registry, "unavailable-line"));
+        assertEquals(0, deleted(registry, "stale-line"));
+        assertEquals(0, deleted(registry, "empty-cart"));
+        // the owner's cart ETag must move, or a revalidating client keeps the deleted line
+        assertEquals(List.of(userId), cartEvents());
+
+        compaction(registry, Duration.ofSeconds(-1)).run(); // everything is "older" than the cutoff
+        assertEquals(2, deleted(registry, "stale-line"));
+        assertEquals(1, deleted(registry, "empty-cart"));
+        assertEquals(List.of(userId, userId), cartEvents());
+    }
+
+    private CartCompactionJob compaction(MeterRegistry registry, Duration maxAge) {
+        return new CartCompactionJob(carts, items, txManager, registry, publisher, Optional.empty(), maxAge, 500, 0);
+    }
+
+    private static double deleted(MeterRegistry registry, String what) {
+        return registry.get("cart.compaction.deleted").tag("what", what).counter().count();
+    }
+
+    private List<Long> cartEvents() {
+        return events.stream(CartChangedEvent.class).map(CartChangedEvent::userId).toList();
+    }
+}
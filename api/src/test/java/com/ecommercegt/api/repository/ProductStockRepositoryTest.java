@@ -0,0 +1,273 @@
+package com.ecommercegt.api.repository;
+
+import com.ecommercegt.api.event.StockChangedEvent;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.model.Role;
+import com.ecommercegt.api.model.User;
+import com.ecommercegt.api.service.HotStock;
+import com.ecommercegt.api.service.ProductModerationService;
+import com.ecommercegt.api.service.SellerProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkout's stock taking under real row locks: concurrent buyers of the last units never
+ * oversell, buyers of different products (or of one hot product's shards) do not wait for each
+ * other, and moderation or seller edits never write back a stock read before a sale.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;MODE=PostgreSQL;LOCK_TIMEOUT=10000;INIT=CREATE SCHEMA IF NOT EXISTS ecommerce",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({HotStock.class, ProductModerationService.class, SellerProductService.class})
+@RecordApplicationEvents
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every thread commits on its own
+class ProductStockRepositoryTest {
+
+    @Autowired HotStock hotStock;
+    @Autowired ProductModerationService moderation;
+    @Autowired SellerProductService sellerProducts;
+    @Autowired ApplicationEvents events;
+    @Autowired ProductRepository products;
+    @Autowired StockShardRepository shards;
+    @Autowired UserRepository users;
+    @Autowired PlatformTransactionManager txManager;
+
+    private TransactionTemplate tx;
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(txManager);
+        shards.deleteAll();
+        products.deleteAll();
+        users.deleteAll();
+        seller = users.save(new User("Seller", "seller@ecommercegt.com", "x", Role.COMMON));
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        long id = product(10);
+
+        assertEquals(10, race(32, () -> products.decrementStock(Map.of(id, 1)).isEmpty()));
+        assertEquals(0, products.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void shortItemRollsBackTheWholeBatch() {
+        long phone = product(5), table = product(1);
+
+        var missing = tx.execute(s -> {
+            var m = products.decrementStock(Map.of(phone, 2, table, 3));
+            s.setRollbackOnly();
+            return m;
+        });
+
+        assertEquals(List.of(table), missing);
+        assertEquals(5, products.findById(phone).orElseThrow().getStock());
+        assertEquals(1, products.findById(table).orElseThrow().getStock());
+    }
+
+    @Test
+    void differentProductsDoNotWaitForEachOther() throws Exception {
+        long phone = product(5), table = product(5);
+
+        var second = whileLocked(() -> products.decrementStock(Map.of(phone, 1)),
+                () -> products.decrementStock(Map.of(table, 1)));
+
+        assertEquals(List.of(), second);
+        assertEquals(4, products.findById(phone).orElseThrow().getStock());
+        assertEquals(4, products.findById(table).orElseThrow().getStock());
+    }
+
+    @Test
+    void moderationDoesNotGiveBackUnitsSoldMeanwhile() throws Exception {
+        long id = product(5);
+
+        tx.executeWithoutResult(s -> {
+            products.findById(id).orElseThrow(); // the moderator's copy, read before the sale
+            committedElsewhere(() -> products.decrementStock(Map.of(id, 2)));
+            moderation.reject(id);
+        });
+
+        var p = products.findById(id).orElseThrow();
+        assertEquals(Product.Status.REJECTED, p.getStatus());
+        assertEquals(3, p.getStock());
+    }
+
+    // --- hot products: the stock lives in shards (HotStock) ---
+
+    @Test
+    void concurrentCheckoutsOfAHotProductNeverOversell() throws Exception {
+        long id = product(20);
+        hotStock.enable(id, 4);
+
+        assertEquals(20, race(40, () -> hotStock.take(id, 4, 1)));
+        hotStock.reconcile();
+        assertEquals(0, products.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void hotProductGathersUnitsAcrossShardsAndFoldsThemBack() {
+        long id = product(8); // 2 per shard
+        hotStock.enable(id, 4);
+
+        assertEquals(true, tx.execute(s -> hotStock.take(id, 4, 5)));
+        assertEquals(false, tx.execute(s -> {
+            boolean ok = hotStock.take(id, 4, 4);
+            s.setRollbackOnly();
+            return ok;
+        }));
+        assertEquals(List.of(id), tx.execute(s -> products.decrementStock(Map.of(id, 1)))); // not through the row
+
+        var status = hotStock.disable(id);
+        assertEquals(3, status.stock());
+        var p = products.findById(id).orElseThrow();
+        assertEquals(3, p.getStock());
+        assertFalse(p.isHot());
+    }
+
+    @Test
+    void checkoutsOfTheSameHotProductDoNotWaitForEachOther() throws Exception {
+        long id = product(8);
+        hotStock.enable(id, 4);
+
+        assertTrue(whileLocked(() -> hotStock.take(id, 4, 1), () -> hotStock.take(id, 4, 1))); // another shard
+
+        hotStock.reconcile();
+        assertEquals(6, products.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void unitsSoldFromShardsReachTheCatalogWhenWrittenBack() {
+        long id = product(8);
+        hotStock.enable(id, 4);
+
+        tx.executeWithoutResult(s -> hotStock.take(id, 4, 3));
+        hotStock.reconcile();
+        tx.executeWithoutResult(s -> hotStock.take(id, 4, 1));
+        hotStock.disable(id);
+
+        assertEquals(List.of(Map.of(id, 3), Map.of(id, 1)),
+                events.stream(StockChangedEvent.class).map(StockChangedEvent::decrements).toList());
+        assertEquals(4, products.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void sellerEditKeepsAHotProductHotUnlessItChangesTheStock() {
+        long id = product(8);
+        hotStock.enable(id, 4);
+        tx.executeWithoutResult(s -> hotStock.take(id, 4, 3)); // products.stock still says 8
+
+        sellerProducts.update(seller.getId(), id, changes(8)); // the copy the seller was shown
+        sellerProducts.update(seller.getId(), id, changes(5)); // the live count
+        assertTrue(products.findById(id).orElseThrow().isHot());
+
+        sellerProducts.update(seller.getId(), id, changes(20));
+        var p = products.findById(id).orElseThrow();
+        assertFalse(p.isHot());
+        assertEquals(20, p.getStock());
+        assertEquals(0, shards.count());
+    }
+
+    // --- fixtures ---
+
+    private static SellerProductService.Changes changes(int stock) {
+        return new SellerProductService.Changes("Producto editado", "Descripción corregida", "https://img/p",
+                new BigDecimal("10.00"), stock, Product.Condition.NEW, Product.Category.OTHER);
+    }
+
+    // Runs `buyers` checkouts at once, each in its own transaction (rolled back when it gets
+    // nothing); returns how many got their units
+    private int race(int buyers, Supplier<Boolean> checkout) throws Exception {
+        var sold = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var pool = Executors.newFixedThreadPool(buyers);
+        var done = new ArrayList<Future<?>>();
+        for (int i = 0; i < buyers; i++) {
+            done.add(pool.submit(() -> {
+                start.await();
+                tx.executeWithoutResult(s -> {
+                    if (checkout.get()) sold.incrementAndGet();
+                    else s.setRollbackOnly();
+                });
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var f : done) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        return sold.get();
+    }
+
+    // Runs `first` in a transaction kept open (row locks held) until `second`, in its own
+    // transaction, has returned; fails if `second` had to wait for those locks
+    private <T> T whileLocked(Runnable first, Supplier<T> second) throws Exception {
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = Executors.newSingleThreadExecutor().submit(() -> tx.executeWithoutResult(s -> {
+            first.run();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        try {
+            return Executors.newSingleThreadExecutor().submit(() -> tx.execute(s -> second.get()))
+                    .get(2, TimeUnit.SECONDS); // would time out if serialised
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // Runs `work` in its own transaction on another connection and waits for it to commit
+    private void committedElsewhere(Runnable work) {
+        try {
+            Executors.newSingleThreadExecutor().submit(() -> tx.executeWithoutResult(s -> work.run()))
+                    .get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long product(int stock) {
+        var p = new Product();
+        p.setOwner(seller);
+        p.setName("Producto");
+        p.setDescription("Descripción");
+        p.setImageUrl("https://img/p");
+        p.setPrice(new BigDecimal("10.00"));
+        p.setStock(stock);
+        p.setStatus(Product.Status.APPROVED);
+        return products.save(p).getId();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.model.CheckoutKey;
+import com.ecommercegt.api.model.Order;
+import com.ecommercegt.api.repository.CheckoutKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CheckoutIdempotencyTest {
+
+    private final CheckoutKeyRepository keys = mock(CheckoutKeyRepository.class);
+    private final AtomicInteger checkouts = new AtomicInteger();
+    private CheckoutIdempotency idempotency;
+
+    @BeforeEach
+    void setUp() {
+        var txManager = mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(keys.findByUserIdAndIdemKey(any(), any())).thenReturn(Optional.empty());
+        when(keys.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+        idempotency = new CheckoutIdempotency(keys, txManager, Duration.ofHours(24));
+    }
+
+    @Test
+    void retryReturnsTheFirstOrderWithoutCheckingOutAgain() {
+        var first = idempotency.orderFor(7L, "k1", "body", () -> order(42L));
+        var retry = idempotency.orderFor(7L, "k1", "body", () -> order(43L));
+
+        assertThat(first).isEqualTo(42L);
+        assertThat(retry).isEqualTo(42L);
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirstExecution() throws Exception {
+        var started = new CountDownLatch(1);
+        var finish = new CountDownLatch(1);
+        var pool = Executors.newFixedThreadPool(2);
+
+        var first = pool.submit(() -> idempotency.orderFor(7L, "k1", "body", () -> {
+            started.countDown();
+            await(finish);
+            return order(42L);
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        var duplicate = pool.submit(() -> idempotency.orderFor(7L, "k1", "body", () -> order(43L)));
+
+        assertThatThrownBy(() -> duplicate.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        finish.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(42L);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(42L);
+        assertThat(checkouts).hasValue(1);
+        pool.shutdown();
+    }
+
+    @Test
+    void sameKeyWithAnotherRequestIsRejected() {
+        idempotency.orderFor(7L, "k1", "body", () -> order(42L));
+
+        assertThatThrownBy(() -> idempotency.orderFor(7L, "k1", "other body", () -> order(43L)))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void failedCheckoutCanBeRetried() {
+        assertThatThrownBy(() -> idempotency.orderFor(7L, "k1", "body", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(idempotency.orderFor(7L, "k1", "body", () -> order(42L))).isEqualTo(42L);
+    }
+
+    @Test
+    void expiredKeyIsReplacedInTheNewCheckoutTransaction() {
+        var old = CheckoutKey.builder().userId(7L).idemKey("k1").requestHash("x").orderId(41L)
+                .createdAt(Instant.now().minus(Duration.ofHours(25))).build();
+        when(keys.findByUserIdAndIdemKey(7L, "k1")).thenReturn(Optional.of(old));
+
+        assertThat(idempotency.orderFor(7L, "k1", "body", () -> order(42L))).isEqualTo(42L);
+
+        var inOrder = inOrder(keys);
+        inOrder.verify(keys).deleteExpired(eq(7L), eq("k1"), any());
+        inOrder.verify(keys).saveAndFlush(argThat(k -> k.getOrderId() == 42L));
+        assertThat(checkouts).hasValue(1);
+    }
+
+    private Order order(Long id) {
+        checkouts.incrementAndGet();
+        return Order.builder().id(id).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
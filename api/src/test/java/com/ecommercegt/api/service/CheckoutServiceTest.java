@@ -0,0 +1,91 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.CartFixtures;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkout round trips must not grow with the cart: lines and products are read in one query,
+ * the stock is taken in one batch and the order rows go out as JDBC batches.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout;MODE=PostgreSQL;INIT=CREATE SCHEMA IF NOT EXISTS ecommerce",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CheckoutService.class, StockReservations.class, HotStock.class, CheckoutServiceTest.StatementCounter.class})
+class CheckoutServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired CheckoutService checkout;
+
+    private int runs;
+
+    @Test
+    void statementCountDoesNotGrowWithTheCart() {
+        // the first checkouts also fetch the pooled id blocks
+        statementsForCheckoutOf(1);
+        statementsForCheckoutOf(1);
+        assertEquals(statementsForCheckoutOf(2), statementsForCheckoutOf(8));
+    }
+
+    private long statementsForCheckoutOf(int lines) {
+        var buyer = CartFixtures.buyerWithCart(em, String.valueOf(++runs), lines);
+
+        long before = StatementCounter.prepared.get();
+        var order = checkout.checkout(buyer.getId(), null, "Buyer", "4111111111111111", "VISA", false);
+        em.flush();
+
+        assertEquals(lines, order.getItems().size());
+        return StatementCounter.prepared.get() - before;
+    }
+
+    // Counts statements where they are prepared, on the pooled connections: Hibernate's Statistics
+    // miss plain JDBC work such as the stock decrement batch (ProductStockRepositoryImpl)
+    @TestConfiguration
+    static class StatementCounter {
+        static final AtomicLong prepared = new AtomicLong();
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String name) {
+                    return bean instanceof DataSource ds ? counting(DataSource.class, ds) : bean;
+                }
+            };
+        }
+
+        private static <T> T counting(Class<T> type, T target) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+                Object out;
+                try {
+                    out = m.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (out instanceof Connection c && m.getName().equals("getConnection")) return counting(Connection.class, c);
+                if (m.getName().startsWith("prepare") || m.getName().equals("createStatement")) prepared.incrementAndGet();
+                return out;
+            }));
+        }
+    }
+}
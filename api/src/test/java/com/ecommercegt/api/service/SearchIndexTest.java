@@ -0,0 +1,68 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchIndexTest {
+
+    private final CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(snapshot.all()).thenReturn(List.of(
+                item(1L, "Teléfono Samsung A15", "Teléfono usado en buen estado, 128GB", Product.Category.TECHNOLOGY, Product.Condition.USED),
+                item(2L, "Mesa de madera", "Mesa para comedor, incluye cuatro sillas", Product.Category.HOME, Product.Condition.NEW),
+                item(3L, "Funda para teléfono", "Funda de silicona compatible con varios modelos", Product.Category.TECHNOLOGY, Product.Condition.NEW)
+        ));
+        when(snapshot.get(any())).thenReturn(Optional.empty());
+        index = new SearchIndex(snapshot);
+        index.rebuild();
+    }
+
+    @Test
+    void foldsAccentsAndRanksTitleMatchesFirst() {
+        var hits = index.search("telefono", null, null, 10);
+
+        assertThat(hits).extracting(h -> h.product().id()).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void matchesPluralsAndAppliesFilters() {
+        assertThat(index.search("mesas", null, null, 10)).extracting(h -> h.product().id()).containsExactly(2L);
+        assertThat(index.search("telefono", null, Product.Condition.NEW, 10)).extracting(h -> h.product().id()).containsExactly(3L);
+        assertThat(index.search("telefono", Product.Category.HOME, null, 10)).isEmpty();
+    }
+
+    @Test
+    void updatesIncrementallyOnModeration() {
+        var rejected = item(1L, "Teléfono Samsung A15", "x", Product.Category.TECHNOLOGY, Product.Condition.USED, Product.Status.REJECTED);
+        index.onProductChanged(new ProductChangedEvent(rejected));
+        index.onProductChanged(new ProductChangedEvent(item(4L, "Audífonos inalámbricos", "Bluetooth 5.0", Product.Category.TECHNOLOGY, Product.Condition.NEW)));
+
+        assertThat(index.search("samsung", null, null, 10)).isEmpty();
+        assertThat(index.search("audifonos", null, null, 10)).extracting(h -> h.product().id()).containsExactly(4L);
+    }
+
+    private static CatalogItem item(Long id, String name, String description, Product.Category category, Product.Condition condition) {
+        return item(id, name, description, category, condition, Product.Status.APPROVED);
+    }
+
+    private static CatalogItem item(Long id, String name, String description, Product.Category category,
+                                    Product.Condition condition, Product.Status status) {
+        return new CatalogItem(id, name, description, "img", new BigDecimal("10.00"), 5, condition, category, status,
+                Instant.parse("2025-10-01T00:00:00Z").plusSeconds(id), 1L);
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommercegt.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StockReservationsTest {
+
+    private static final long PHONE = 1L, TABLE = 2L;
+
+    private final StockReservations reservations = new StockReservations(Duration.ofMinutes(15));
+
+    @Test
+    void otherBuyersHoldsReduceWhatIsAvailable() {
+        reservations.hold(10L, Map.of(PHONE, 3), pid -> 5);
+
+        assertThatThrownBy(() -> reservations.hold(20L, Map.of(PHONE, 3), pid -> 5))
+                .isInstanceOf(ResponseStatusException.class);
+        reservations.hold(20L, Map.of(PHONE, 2), pid -> 5);
+
+        assertThat(reservations.heldByOthers(PHONE, 10L)).isEqualTo(2);
+        assertThat(reservations.heldByOthers(PHONE, 20L)).isEqualTo(3);
+    }
+
+    @Test
+    void failedBatchUndoesItsIncreases() {
+        reservations.hold(10L, Map.of(TABLE, 1), pid -> 1);
+
+        assertThatThrownBy(() -> reservations.hold(20L, Map.of(PHONE, 4, TABLE, 1), pid -> pid == PHONE ? 5 : 1))
+                .isInstanceOf(ResponseStatusException.class);
+
+        assertThat(reservations.heldByOthers(PHONE, 10L)).isZero();
+    }
+
+    @Test
+    void releasedAndExpiredHoldsFreeTheStock() {
+        reservations.hold(10L, Map.of(PHONE, 5), pid -> 5);
+        reservations.release(10L, List.of(PHONE));
+        assertThat(reservations.heldByOthers(PHONE, 20L)).isZero();
+
+        var instant = new StockReservations(Duration.ZERO);
+        instant.hold(10L, Map.of(PHONE, 5), pid -> 5);
+        instant.sweep();
+        assertThat(instant.heldByOthers(PHONE, 20L)).isZero();
+    }
+}
@@ -0,0 +1,92 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.event.ProductChangedEvent;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SuggestIndexTest {
+
+    private static final List<String> PREFIXES = List.of("t", "te", "telefono", "s", "samsung", "m", "mesa", "a", "f");
+
+    private final CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+    private final OrderItemRepository orderItems = mock(OrderItemRepository.class);
+    // what the snapshot holds: APPROVED products by id
+    private final Map<Long, CatalogItem> catalog = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(snapshot.all()).thenAnswer(inv -> List.copyOf(catalog.values()));
+        when(snapshot.get(any())).thenAnswer(inv -> Optional.ofNullable(catalog.get((Long) inv.getArgument(0))));
+        when(orderItems.unitsSoldSince(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void renameAndRemovalMoveOnlyThatProductsKeys() {
+        change(item(1L, "Teléfono Samsung A15", Product.Status.APPROVED));
+        change(item(2L, "Mesa de madera", Product.Status.APPROVED));
+        var index = rebuilt();
+
+        index.onProductChanged(new ProductChangedEvent(change(item(1L, "Funda Samsung", Product.Status.APPROVED))));
+        index.onProductChanged(new ProductChangedEvent(change(item(2L, "Mesa de madera", Product.Status.REJECTED))));
+
+        assertThat(index.suggest("telefono", 10)).isEmpty();
+        assertThat(index.suggest("sam", 10)).extracting(SuggestIndex.Suggestion::id).containsExactly(1L);
+        assertThat(index.suggest("funda", 10)).extracting(SuggestIndex.Suggestion::id).containsExactly(1L);
+        assertThat(index.suggest("mesa", 10)).isEmpty();
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullRebuild() {
+        var names = List.of("Teléfono Samsung A15", "Mesa de madera", "Funda para teléfono", "Samsung Galaxy",
+                "Teléfono fijo", "Mesa auxiliar", "Audífonos Samsung");
+        var statuses = Product.Status.values();
+        var random = new Random(42);
+        var index = rebuilt();
+
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(12);
+            var item = item(id, names.get(random.nextInt(names.size())), statuses[random.nextInt(statuses.length)]);
+            index.onProductChanged(new ProductChangedEvent(change(item)));
+        }
+
+        var fresh = rebuilt();
+        for (var p : PREFIXES) {
+            assertThat(index.suggest(p, 20)).as(p).containsExactlyInAnyOrderElementsOf(fresh.suggest(p, 20));
+        }
+    }
+
+    // --- fixtures ---
+
+    private SuggestIndex rebuilt() {
+        var index = new SuggestIndex(snapshot, orderItems);
+        index.rebuild();
+        return index;
+    }
+
+    // Applies the change to the snapshot stand-in, as CatalogSnapshot does with the same event
+    private CatalogItem change(CatalogItem item) {
+        if (item.status() == Product.Status.APPROVED) catalog.put(item.id(), item);
+        else catalog.remove(item.id());
+        return item;
+    }
+
+    private static CatalogItem item(Long id, String name, Product.Status status) {
+        return new CatalogItem(id, name, "Descripción", "img", new BigDecimal("10.00"), 5, Product.Condition.NEW,
+                Product.Category.OTHER, status, Instant.parse("2025-10-01T00:00:00Z").plusSeconds(id), 1L);
+    }
+}
@@ -0,0 +1,233 @@
+package com.ecommercegt.api.service;
+
+import com.ecommercegt.api.model.Cart;
+import com.ecommercegt.api.model.CartItem;
+import com.ecommercegt.api.model.Money;
+import com.ecommercegt.api.model.Product;
+import com.ecommercegt.api.repository.CartItemRepository;
+import com.ecommercegt.api.repository.CartRepository;
+import com.ecommercegt.api.repository.ProductRepository;
+import com.ecommercegt.api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The store against an in-memory stand-in for the cart tables: the log must bring back edits lost
+ * in a crash, flushes must coalesce, and no edit may be lost to eviction or log rotation.
+ */
+class WriteBehindCartStoreTest {
+
+    private static final long BUYER = 7L;
+
+    @TempDir Path dir;
+
+    private final CartRepository carts = mock(CartRepository.class);
+    private final CartItemRepository items = mock(CartItemRepository.class);
+    private final CatalogSnapshot snapshot = mock(CatalogSnapshot.class);
+    private final StockReservations reservations = new StockReservations(Duration.ofMinutes(15));
+    // user id -> product id -> quantity, as the database would hold it
+    private final Map<Long, Map<Long, Integer>> db = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(snapshot.get(anyLong())).thenAnswer(inv -> {
+            Long id = inv.getArgument(0);
+            return Optional.of(new CatalogItem(id, "Producto " + id, null, null, new BigDecimal("1.00"),
+                    1_000_000, null, null, Product.Status.APPROVED, null, 1L));
+        });
+        when(carts.findByUserId(anyLong())).thenAnswer(inv -> Optional.of(cart(inv.getArgument(0))));
+        when(carts.findWithItemsByUserId(anyLong())).thenAnswer(inv -> {
+            Long userId = inv.getArgument(0);
+            var cart = cart(userId);
+            lines(userId).forEach((pid, qty) -> {
+                var p = new Product();
+                p.setId(pid);
+                var ci = new CartItem();
+                ci.setCart(cart);
+                ci.setProduct(p);
+                ci.setQuantity(qty);
+                ci.setUnitPrice(Money.ofCents(100));
+                cart.getItems().add(ci);
+            });
+            return Optional.of(cart);
+        });
+        doAnswer(inv -> lines(userOf(inv.getArgument(0))).put(inv.getArgument(1), inv.getArgument(2)))
+                .when(items).setLine(anyLong(), anyLong(), anyInt(), any());
+        doAnswer(inv -> lines(userOf(inv.getArgument(0))).remove((Long) inv.getArgument(1)))
+                .when(items).deleteLine(anyLong(), anyLong());
+        doAnswer(inv -> {
+            lines(userOf(inv.getArgument(0))).clear();
+            return null;
+        }).when(items).deleteAllByCartId(anyLong());
+    }
+
+    @Test
+    void replaysTheLogAfterACrashIgnoringATornLastLine() throws Exception {
+        var crashed = store(Duration.ofMinutes(30));
+        crashed.apply(BUYER, List.of(add(1L, 2), add(2L, 3)));
+        crashed.apply(BUYER, List.of(new CartService.CartOp(CartService.CartOp.Type.REMOVE, null, 1L, null)));
+        // crash mid-append: half a record, no newline
+        Files.writeString(segments().get(0), "S 7 9 4 10", StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+        assertThat(lines(BUYER)).isEmpty(); // nothing reached the database
+
+        var restarted = store(Duration.ofMinutes(30));
+        restarted.afterSingletonsInstantiated();
+
+        assertThat(lines(BUYER)).isEqualTo(Map.of(2L, 3));
+        assertThat(quantities(restarted.view(BUYER))).isEqualTo(Map.of(2L, 3));
+        assertThat(segments()).hasSize(1); // replayed segment deleted, only the new active one left
+    }
+
+    @Test
+    void coalescesEditsIntoOneWrite() {
+        var store = store(Duration.ofMinutes(30));
+        for (int i = 0; i < 10; i++) store.apply(BUYER, List.of(add(1L, 1)));
+
+        store.flushAll();
+
+        verify(items, times(1)).setLine(eq(cartIdOf(BUYER)), eq(1L), eq(10), any());
+        assertThat(lines(BUYER)).isEqualTo(Map.of(1L, 10));
+    }
+
+    @Test
+    void checkoutFlushesThenDropsOnlyWhatTheOrderTook() {
+        var store = store(Duration.ofMinutes(30));
+        store.apply(BUYER, List.of(add(1L, 2)));
+
+        store.flushForCheckout(BUYER); // before the checkout transaction
+        assertThat(lines(BUYER)).isEqualTo(Map.of(1L, 2));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.dropAfterCheckout(BUYER);
+            store.apply(BUYER, List.of(add(2L, 1))); // edit racing the checkout, not flushed yet
+            lines(BUYER).clear();                    // the checkout empties the cart rows
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(quantities(store.view(BUYER))).isEqualTo(Map.of(2L, 1));
+        store.flushAll();
+        assertThat(lines(BUYER)).isEqualTo(Map.of(2L, 1));
+    }
+
+    @Test
+    void failedLogAppendGivesTheHoldsBack() throws Exception {
+        var store = store(Duration.ofMinutes(30));
+        store.apply(BUYER, List.of(add(1L, 2)));
+        store.shutdown(); // closes the log: the next append fails
+
+        assertThatThrownBy(() -> store.apply(BUYER, List.of(add(1L, 3), add(2L, 1))))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(reservations.heldByOthers(1L, BUYER + 1)).isEqualTo(2);
+        assertThat(reservations.heldByOthers(2L, BUYER + 1)).isZero();
+        assertThat(quantities(store.view(BUYER))).isEqualTo(Map.of(1L, 2));
+    }
+
+    @Test
+    void noEditIsLostToEvictionOrLogRotation() throws Exception {
+        var store = store(Duration.ofMillis(-1)); // every clean cart is evicted on every pass
+        int threads = 8, edits = 300, buyers = 4;
+        var pool = Executors.newFixedThreadPool(threads + 1);
+        var start = new CountDownLatch(1);
+        var done = new AtomicBoolean();
+
+        var flusher = pool.submit(() -> {
+            start.await();
+            while (!done.get()) store.flushAll();
+            return null;
+        });
+        var editors = new ArrayList<Future<?>>();
+        for (int t = 0; t < threads; t++) {
+            long productId = t % 2 + 1;
+            editors.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < edits; i++) store.apply(BUYER + i % buyers, List.of(add(productId, 1)));
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var f : editors) f.get(60, TimeUnit.SECONDS);
+        done.set(true);
+        flusher.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        store.flushAll();
+        int each = threads / 2 * edits / buyers;
+        for (long b = BUYER; b < BUYER + buyers; b++) {
+            assertThat(lines(b)).isEqualTo(Map.of(1L, each, 2L, each));
+            assertThat(quantities(store.view(b))).isEqualTo(Map.of(1L, each, 2L, each));
+        }
+        assertThat(segments()).hasSize(1); // every sealed segment was written and deleted
+    }
+
+    // --- fixtures ---
+
+    private WriteBehindCartStore store(Duration idleEviction) {
+        return new WriteBehindCartStore(carts, items, mock(ProductRepository.class), mock(UserRepository.class),
+                snapshot, reservations, e -> {},
+                mock(PlatformTransactionManager.class), dir.resolve("cart-wal.log").toString(), false, idleEviction);
+    }
+
+    private List<Path> segments() throws Exception {
+        try (var files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static CartService.CartOp add(Long productId, int qty) {
+        return new CartService.CartOp(CartService.CartOp.Type.ADD, productId, null, qty);
+    }
+
+    private Map<Long, Integer> lines(Long userId) {
+        return db.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
+    }
+
+    private static Map<Long, Integer> quantities(Cart cart) {
+        return cart.getItems().stream().collect(Collectors.toMap(ci -> ci.getProduct().getId(), CartItem::getQuantity));
+    }
+
+    private static Cart cart(Long userId) {
+        var c = new Cart();
+        c.setId(cartIdOf(userId));
+        return c;
+    }
+
+    private static long cartIdOf(long userId) {
+        return 1000 + userId;
+    }
+
+    private static long userOf(long cartId) {
+        return cartId - 1000;
+    }
+}
@@ -43,7 +43,8 @@ CREATE TABLE ecommerce.cart_items (
     unit_price numeric(12,2) NOT NULL,
     cart_id bigint NOT NULL,
     product_id bigint NOT NULL,
-    quantity integer NOT NULL
+    quantity integer NOT NULL,
+    updated_at timestamp(6) with time zone
 );
 
 
@@ -64,6 +65,62 @@ ALTER TABLE ecommerce.cart_items ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDE
 );
 
 
+--
+-- Name: product_stock_shards; Type: TABLE; Schema: ecommerce; Owner: ecommerce_app
+--
+
+CREATE TABLE ecommerce.product_stock_shards (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id bigint NOT NULL,
+    shard integer NOT NULL,
+    stock integer NOT NULL,
+    CONSTRAINT ux_stock_shards_product_shard UNIQUE (product_id, shard)
+);
+
+ALTER TABLE ecommerce.product_stock_shards OWNER TO ecommerce_app;
+
+
+--
+-- Name: refresh_tokens; Type: TABLE; Schema: ecommerce; Owner: ecommerce_app
+--
+
+CREATE TABLE ecommerce.refresh_tokens (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES ecommerce.users(id),
+    token_hash character varying(64) NOT NULL,
+    family_id character varying(36) NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL,
+    expires_at timestamp(6) with time zone NOT NULL,
+    used_at timestamp(6) with time zone,
+    revoked_at timestamp(6) with time zone
+);
+
+CREATE UNIQUE INDEX ux_refresh_tokens_hash ON ecommerce.refresh_tokens USING btree (token_hash);
+CREATE INDEX ix_refresh_tokens_family ON ecommerce.refresh_tokens USING btree (family_id);
+CREATE INDEX ix_refresh_tokens_expires ON ecommerce.refresh_tokens USING btree (expires_at);
+
+ALTER TABLE ecommerce.refresh_tokens OWNER TO ecommerce_app;
+
+
+--
+-- Name: checkout_keys; Type: TABLE; Schema: ecommerce; Owner: ecommerce_app
+--
+
+CREATE TABLE ecommerce.checkout_keys (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL,
+    idem_key character varying(100) NOT NULL,
+    request_hash character varying(64) NOT NULL,
+    order_id bigint NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE UNIQUE INDEX ux_checkout_keys_user_key ON ecommerce.checkout_keys USING btree (user_id, idem_key);
+CREATE INDEX ix_checkout_keys_created ON ecommerce.checkout_keys USING btree (created_at);
+
+ALTER TABLE ecommerce.checkout_keys OWNER TO ecommerce_app;
+
+
 --
 -- TOC entry 225 (class 1259 OID 17263)
 -- Name: carts; Type: TABLE; Schema: ecommerce; Owner: ecommerce_app
@@ -117,7 +174,7 @@ ALTER TABLE ecommerce.order_items OWNER TO ecommerce_app;
 ALTER TABLE ecommerce.order_items ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (
     SEQUENCE NAME ecommerce.order_items_id_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1
@@ -152,7 +209,7 @@ ALTER TABLE ecommerce.orders OWNER TO ecommerce_app;
 ALTER TABLE ecommerce.orders ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (
     SEQUENCE NAME ecommerce.orders_id_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1
@@ -186,7 +243,7 @@ ALTER TABLE ecommerce.payments OWNER TO ecommerce_app;
 ALTER TABLE ecommerce.payments ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (
     SEQUENCE NAME ecommerce.payments_id_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1
@@ -209,6 +266,7 @@ CREATE TABLE ecommerce.products (
     price numeric(12,2) NOT NULL,
     status character varying(255) NOT NULL,
     stock integer NOT NULL,
+    stock_shards integer,
     updated_at timestamp(6) with time zone NOT NULL,
     owner_id bigint NOT NULL,
     CONSTRAINT products_category_check CHECK (((category)::text = ANY ((ARRAY['TECHNOLOGY'::character varying, 'HOME'::character varying, 'ACADEMIC'::character varying, 'PERSONAL'::character varying, 'DECORATION'::character varying, 'OTHER'::character varying])::text[]))),
@@ -217,6 +275,10 @@ CREATE TABLE ecommerce.products (
     CONSTRAINT products_stock_check CHECK ((stock >= 0))
 );
 
+-- keyset pagination of the catalog and of a seller's products (newest first)
+CREATE INDEX ix_products_status_created ON ecommerce.products USING btree (status, created_at DESC, id DESC);
+CREATE INDEX ix_products_status_category_created ON ecommerce.products USING btree (status, category, created_at DESC, id DESC);
+CREATE INDEX ix_products_owner_created ON ecommerce.products USING btree (owner_id, created_at DESC);
 
 ALTER TABLE ecommerce.products OWNER TO ecommerce_app;
 
@@ -283,6 +345,7 @@ CREATE TABLE ecommerce.users (
     password character varying(255) NOT NULL,
     role character varying(255) NOT NULL,
     active boolean DEFAULT true NOT NULL,
+    tokens_valid_after timestamp(6) with time zone,
     CONSTRAINT users_role_check CHECK (((role)::text = ANY ((ARRAY['ADMIN'::character varying, 'MODERATOR'::character varying, 'LOGISTICS'::character varying, 'COMMON'::character varying])::text[])))
 );
 
@@ -313,6 +376,14 @@ ALTER TABLE ONLY ecommerce.cart_items
     ADD CONSTRAINT cart_items_pkey PRIMARY KEY (id);
 
 
+--
+-- Name: cart_items ux_cart_items_cart_product; Type: CONSTRAINT; Schema: ecommerce; Owner: ecommerce_app
+--
+
+ALTER TABLE ONLY ecommerce.cart_items
+    ADD CONSTRAINT ux_cart_items_cart_product UNIQUE (cart_id, product_id);
+
+
 --
 -- TOC entry 3610 (class 2606 OID 17267)
 -- Name: carts carts_pkey; Type: CONSTRAINT; Schema: ecommerce; Owner: ecommerce_app
@@ -0,0 +1,18 @@
+--
+-- Indexes behind the keyset (cursor) pagination of the catalog and of "my products": each page
+-- is a range scan in (created_at, id) order instead of a sort of every matching product.
+-- Run once on existing databases; safe to run again.
+--
+-- Built CONCURRENTLY so checkouts and edits keep writing to products meanwhile, which is why
+-- there is no BEGIN/COMMIT (CREATE INDEX CONCURRENTLY cannot run inside a transaction). If a
+-- build is interrupted it leaves an INVALID index: drop it and run the script again.
+--
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_products_status_created
+    ON ecommerce.products USING btree (status, created_at DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_products_status_category_created
+    ON ecommerce.products USING btree (status, category, created_at DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_products_owner_created
+    ON ecommerce.products USING btree (owner_id, created_at DESC);
@@ -0,0 +1,43 @@
+--
+-- One line per (cart, product) in cart_items, required by CartItemRepository.upsertLine
+-- (INSERT ... ON CONFLICT (cart_id, product_id)). Run once on existing databases before
+-- deploying; safe to run again.
+--
+-- Duplicate lines are merged into the oldest one (lowest id), summing their quantities and
+-- keeping the most recent updated_at; the others are deleted. Then the constraint is added.
+--
+
+BEGIN;
+
+LOCK TABLE ecommerce.cart_items IN SHARE ROW EXCLUSIVE MODE;
+
+WITH dups AS (
+    SELECT cart_id, product_id, min(id) AS keep_id,
+           sum(quantity) AS quantity, max(updated_at) AS updated_at
+    FROM ecommerce.cart_items
+    GROUP BY cart_id, product_id
+    HAVING count(*) > 1
+)
+UPDATE ecommerce.cart_items ci
+SET quantity = d.quantity,
+    updated_at = coalesce(d.updated_at, ci.updated_at)
+FROM dups d
+WHERE ci.id = d.keep_id;
+
+DELETE FROM ecommerce.cart_items ci
+USING ecommerce.cart_items keep
+WHERE keep.cart_id = ci.cart_id
+  AND keep.product_id = ci.product_id
+  AND keep.id < ci.id;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = 'ux_cart_items_cart_product'
+                     AND conrelid = 'ecommerce.cart_items'::regclass) THEN
+        ALTER TABLE ecommerce.cart_items
+            ADD CONSTRAINT ux_cart_items_cart_product UNIQUE (cart_id, product_id);
+    END IF;
+END $$;
+
+COMMIT;
@@ -0,0 +1,13 @@
+--
+-- Order, OrderItem and Payment take their ids from pooled sequences (allocationSize = 50):
+-- the identity sequences must step by the same amount or Hibernate's increment check stops
+-- startup. Run once on existing databases before deploying; safe to run again.
+--
+
+BEGIN;
+
+ALTER TABLE ecommerce.orders      ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE ecommerce.order_items ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE ecommerce.payments    ALTER COLUMN id SET INCREMENT BY 50;
+
+COMMIT;
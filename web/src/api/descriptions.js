@@ -0,0 +1,19 @@
+import { ref } from "vue";
+import http from "./http";
+
+// Moderation lists come without descriptions: fetch one on demand and keep it per product id.
+// Errors go to the view's own errorMsg ref.
+export function useDescriptions(errorMsg) {
+    const descriptions = ref({});
+
+    async function showDesc(id) {
+        try {
+            const { data } = await http.get(`/api/moderation/products/${id}`);
+            descriptions.value[id] = data?.description || "—";
+        } catch (e) {
+            errorMsg.value = e?.response?.data?.message || e?.message || "No se pudo cargar la descripción";
+        }
+    }
+
+    return { descriptions, showDesc };
+}
@@ -21,10 +21,40 @@ http.interceptors.request.use((config) => {
     return config;
 });
 
+// Access tokens are short-lived: on 401/403 try one refresh (rotating refresh token) and retry.
+// Concurrent failures share the same refresh call.
+let refreshing = null;
+
+async function refreshAccessToken() {
+    const refreshToken = localStorage.getItem("refreshToken");
+    if (!refreshToken) throw new Error("No refresh token");
+    const { data } = await axios.post(`${http.defaults.baseURL}/api/auth/refresh`, { refreshToken });
+    localStorage.setItem("token", data.token);
+    localStorage.setItem("refreshToken", data.refreshToken);
+    return data.token;
+}
+
 // Optional: global error logging
 http.interceptors.response.use(
     (res) => res,
-    (err) => {
+    async (err) => {
+        const cfg = err?.config;
+        const status = err?.response?.status;
+        if (cfg && !cfg._retried && (status === 401 || status === 403)
+            && !cfg.url?.startsWith("/api/auth/") && localStorage.getItem("refreshToken")) {
+            cfg._retried = true;
+            try {
+                refreshing = refreshing || refreshAccessToken();
+                const token = await refreshing;
+                cfg.headers.Authorization = `Bearer ${token}`;
+                return http(cfg);
+            } catch {
+                localStorage.removeItem("token");
+                localStorage.removeItem("refreshToken");
+            } finally {
+                refreshing = null;
+            }
+        }
         const msg =
             err?.response?.data?.message ||
             err?.response?.data ||
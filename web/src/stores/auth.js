@@ -34,6 +34,7 @@ export const useAuthStore = defineStore("auth", {
                 const { data } = await http.post("/api/auth/login", { email, password });
                 this.token = data.token;
                 localStorage.setItem("token", this.token);
+                localStorage.setItem("refreshToken", data.refreshToken);
                 await this.me();
             } catch (e) {
                 this.error = e.response?.data?.message || "Credenciales inválidas";
@@ -54,9 +55,12 @@ export const useAuthStore = defineStore("auth", {
         },
 
         logout() {
+            const refreshToken = localStorage.getItem("refreshToken");
+            if (refreshToken) http.post("/api/auth/logout", { refreshToken }).catch(() => {});
             this.token = null;
             this.user = null;
             localStorage.removeItem("token");
+            localStorage.removeItem("refreshToken");
         },
     },
 });
\ No newline at end of file